@@ -0,0 +1,290 @@
+package me.dags.data;
+
+import me.dags.data.node.Node;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Reads every matching file below a directory with a NodeAdapter, on a bounded number of threads.
+ * Each file gives a {@link Result} holding its path, the Node read or the exception that stopped it, and the
+ * time taken, so that one bad file doesn't hide the others. At most a few files per thread are in flight at
+ * once, so results can be consumed as they complete without holding every document in memory.
+ *
+ * @author dags <dags@dags.me>
+ */
+public final class DirectoryLoader {
+
+    private final NodeAdapter adapter;
+    private final String glob;
+    private final boolean recursive;
+    private final int parallelism;
+    private final boolean ordered;
+
+    private DirectoryLoader(Builder builder) {
+        this.adapter = builder.adapter;
+        this.glob = builder.glob;
+        this.recursive = builder.recursive;
+        this.parallelism = builder.parallelism;
+        this.ordered = builder.ordered;
+    }
+
+    /**
+     * Reads the files below the directory, returning their results in the order given to the consumer by
+     * {@link #load(Path, Consumer)}
+     */
+    public List<Result> load(Path dir) {
+        List<Result> results = new ArrayList<>();
+        load(dir, results::add);
+        return results;
+    }
+
+    /**
+     * Reads the files below the directory, passing each result to the consumer on the calling thread. Ordered
+     * loaders pass them in path order, others as each file completes. If the directory can't be listed the
+     * consumer is given a single failed result for it.
+     */
+    public void load(Path dir, Consumer<Result> consumer) {
+        List<Path> paths;
+        try {
+            paths = list(dir);
+        } catch (IOException | UncheckedIOException e) {
+            consumer.accept(new Result(dir, Node.NULL, e, 0L));
+            return;
+        }
+        if (parallelism <= 1 || paths.size() <= 1) {
+            for (Path path : paths) {
+                consumer.accept(read(path));
+            }
+            return;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, paths.size()), DirectoryLoader::thread);
+        try {
+            if (ordered) {
+                loadOrdered(paths, executor, consumer);
+            } else {
+                loadUnordered(paths, executor, consumer);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * The regular files below the directory that match the glob, sorted by path if the loader is ordered
+     */
+    public List<Path> list(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            throw new IOException("Not a directory: " + dir);
+        }
+        // the directory's own file system, whose glob syntax reads '/' as its separator, whatever that is
+        PathMatcher matcher = glob != null ? dir.getFileSystem().getPathMatcher("glob:" + glob) : null;
+        // globs without a separator are matched against the file name alone, so "*.json" applies at every depth
+        boolean byName = glob != null && glob.indexOf('/') < 0;
+        try (Stream<Path> walk = Files.walk(dir, recursive ? Integer.MAX_VALUE : 1)) {
+            List<Path> paths = walk.filter(Files::isRegularFile)
+                    .filter(path -> matcher == null || matcher.matches(byName ? path.getFileName() : dir.relativize(path)))
+                    .collect(Collectors.toList());
+            if (ordered) {
+                Collections.sort(paths);
+            }
+            return paths;
+        }
+    }
+
+    // results are taken from the head of the queue in submission order, topping it back up after each one
+    private void loadOrdered(List<Path> paths, ExecutorService executor, Consumer<Result> consumer) {
+        Deque<Future<Result>> pending = new ArrayDeque<>();
+        int next = 0;
+        while (next < paths.size() || !pending.isEmpty()) {
+            while (next < paths.size() && pending.size() < window()) {
+                Path path = paths.get(next++);
+                pending.add(executor.submit(() -> read(path)));
+            }
+            consumer.accept(await(pending.poll()));
+        }
+    }
+
+    private void loadUnordered(List<Path> paths, ExecutorService executor, Consumer<Result> consumer) {
+        CompletionService<Result> completion = new ExecutorCompletionService<>(executor);
+        int next = 0;
+        int inFlight = 0;
+        while (next < paths.size() || inFlight > 0) {
+            while (next < paths.size() && inFlight < window()) {
+                Path path = paths.get(next++);
+                completion.submit(() -> read(path));
+                inFlight++;
+            }
+            try {
+                consumer.accept(await(completion.take()));
+                inFlight--;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Interrupted while loading");
+            }
+        }
+    }
+
+    private int window() {
+        return parallelism * 2;
+    }
+
+    private Result read(Path path) {
+        long start = System.nanoTime();
+        try {
+            return new Result(path, adapter.load(path), null, System.nanoTime() - start);
+        } catch (Exception e) {
+            return new Result(path, Node.NULL, e, System.nanoTime() - start);
+        }
+    }
+
+    // read() catches everything it can, so only errors thrown past it end up here
+    private static Result await(Future<Result> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while loading");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private static Thread thread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "NodeData-DirectoryLoader");
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    public static Builder builder(NodeAdapter adapter) {
+        return new Builder(adapter);
+    }
+
+    /**
+     * The outcome of reading one file
+     */
+    public static final class Result {
+
+        private final Path path;
+        private final Node node;
+        private final Exception error;
+        private final long nanos;
+
+        private Result(Path path, Node node, Exception error, long nanos) {
+            this.path = path;
+            this.node = node;
+            this.error = error;
+            this.nanos = nanos;
+        }
+
+        public Path path() {
+            return path;
+        }
+
+        /**
+         * The Node read from the file, or Node.NULL if it failed
+         */
+        public Node node() {
+            return node;
+        }
+
+        /**
+         * The exception that stopped the file being read, or null if it succeeded
+         */
+        public Exception error() {
+            return error;
+        }
+
+        public boolean succeeded() {
+            return error == null;
+        }
+
+        /**
+         * Time spent opening and reading the file, in nanoseconds
+         */
+        public long nanos() {
+            return nanos;
+        }
+
+        public long millis() {
+            return TimeUnit.NANOSECONDS.toMillis(nanos);
+        }
+
+        @Override
+        public String toString() {
+            return path + (succeeded() ? " (" : " failed: " + error + " (") + millis() + "ms)";
+        }
+    }
+
+    public static class Builder {
+
+        private final NodeAdapter adapter;
+        private String glob = null;
+        private boolean recursive = true;
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+        private boolean ordered = false;
+
+        private Builder(NodeAdapter adapter) {
+            this.adapter = adapter;
+        }
+
+        /**
+         * Only reads files matching the glob, see {@link java.nio.file.FileSystem#getPathMatcher(String)}. Globs
+         * containing a '/' are matched against the path relative to the directory, others against the file name.
+         * Use '/' between names on every platform, as '\' is the glob escape character even on Windows, where
+         * a '/' in a glob matches the '\' separator.
+         */
+        public Builder glob(String glob) {
+            this.glob = glob;
+            return this;
+        }
+
+        /**
+         * Whether to read files in sub-directories too, true by default
+         */
+        public Builder recursive(boolean recursive) {
+            this.recursive = recursive;
+            return this;
+        }
+
+        /**
+         * The number of files read at once, the number of processors by default. 1 reads them on the
+         * calling thread.
+         */
+        public Builder parallelism(int parallelism) {
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("Parallelism must be at least 1: " + parallelism);
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * Gives results in path order rather than as each file completes
+         */
+        public Builder ordered() {
+            this.ordered = true;
+            return this;
+        }
+
+        public DirectoryLoader build() {
+            return new DirectoryLoader(this);
+        }
+    }
+}
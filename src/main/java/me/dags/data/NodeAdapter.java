@@ -1,28 +1,75 @@
 package me.dags.data;
 
+import me.dags.data.binary.SnapshotReader;
+import me.dags.data.binary.SnapshotWriter;
+import me.dags.data.bind.Codecs;
+import me.dags.data.json.ParallelArrayReader;
 import me.dags.data.node.*;
 
 import java.io.*;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.PathMatcher;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public class NodeAdapter {
 
+    public static final long DEFAULT_MAP_THRESHOLD = 8 * 1024 * 1024;
+
     private final ReaderProvider readerProvider;
     private final WriterProvider writerProvider;
+    private final long mapThreshold;
+    private final StringPool stringPool;
+    private final boolean deduplicate;
+    private final boolean frozen;
 
     public NodeAdapter(ReaderProvider reader, WriterProvider writer) {
+        this(reader, writer, DEFAULT_MAP_THRESHOLD);
+    }
+
+    public NodeAdapter(ReaderProvider reader, WriterProvider writer, long mapThreshold) {
+        this(reader, writer, mapThreshold, null);
+    }
+
+    /**
+     * @param stringPool the pool that every reader opened by this adapter takes keys and short string values
+     *                   from, or null to create a new String for each one
+     */
+    public NodeAdapter(ReaderProvider reader, WriterProvider writer, long mapThreshold, StringPool stringPool) {
+        this(reader, writer, mapThreshold, stringPool, false, false);
+    }
+
+    private NodeAdapter(ReaderProvider reader, WriterProvider writer, long mapThreshold, StringPool stringPool, boolean deduplicate, boolean frozen) {
         this.readerProvider = reader;
         this.writerProvider = writer;
+        this.mapThreshold = mapThreshold;
+        this.stringPool = stringPool;
+        this.deduplicate = deduplicate;
+        this.frozen = frozen;
+    }
+
+    /**
+     * The adapter's string pool, for its hit-rate statistics. Null if it doesn't have one.
+     */
+    public StringPool stringPool() {
+        return stringPool;
     }
 
     public Node from(InputStream inputStream) {
-        try (NodeReader reader = readerProvider.get(inputStream)) {
-            return reader.readNode();
+        try (NodeReader reader = open(inputStream)) {
+            return read(reader);
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -51,10 +98,44 @@ public class NodeAdapter {
         return Stream.empty();
     }
 
+    /**
+     * Files at or above the adapter's map threshold are memory-mapped rather than copied onto the heap.
+     * Files too large to map in one region are streamed.
+     */
     public Node from(Path path) {
         if (Files.exists(path)) {
-            try (NodeReader reader = readerProvider.get(Files.newInputStream(path))) {
-                return reader.readNode();
+            try {
+                return load(path);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        return Node.NULL;
+    }
+
+    /**
+     * Reads every file below the directory whose name ends with the extension, in parallel, see
+     * {@link #directoryLoader()}
+     */
+    public List<DirectoryLoader.Result> loadDir(Path dir, String extension) {
+        return directoryLoader().glob("*" + extension).build().load(dir);
+    }
+
+    /**
+     * A loader that reads the files below a directory on several threads, reporting the outcome of each file
+     * rather than printing its errors
+     */
+    public DirectoryLoader.Builder directoryLoader() {
+        return DirectoryLoader.builder(this);
+    }
+
+    /**
+     * Reads the file through a read-only memory mapping, regardless of its size
+     */
+    public Node fromMapped(Path path) {
+        if (Files.exists(path)) {
+            try (NodeReader reader = open(map(path))) {
+                return read(reader);
             } catch (IOException e) {
                 e.printStackTrace();
             }
@@ -62,10 +143,208 @@ public class NodeAdapter {
         return Node.NULL;
     }
 
+    /**
+     * Reads a json file whose root is an array by parsing runs of its elements in parallel on the common
+     * fork-join pool, see {@link ParallelArrayReader}. Other files, and any file if the adapter doesn't read
+     * json, are read as {@link #from(Path)} does.
+     */
+    public Node fromParallel(Path path) {
+        return fromParallel(path, ForkJoinPool.commonPool());
+    }
+
+    public Node fromParallel(Path path, ForkJoinPool pool) {
+        if (Files.exists(path) && readsJson()) {
+            try {
+                ParallelArrayReader reader = ParallelArrayReader.of(path, pool.getParallelism());
+                if (reader != null) {
+                    reader.setStringPool(stringPool);
+                    return finish(reader.read(pool));
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+                return Node.NULL;
+            }
+        }
+        return from(path);
+    }
+
+    /**
+     * The elements of a json file whose root is an array, as a parallel stream in document order. Runs of
+     * elements are parsed as the stream reaches them, so the whole array is never held in memory at once.
+     * Each element is frozen or deduplicated as a whole document read by this adapter would be.
+     */
+    public Stream<Node> streamArray(Path path) {
+        if (Files.exists(path) && readsJson()) {
+            try {
+                ParallelArrayReader reader = ParallelArrayReader.of(path, ForkJoinPool.getCommonPoolParallelism());
+                if (reader != null) {
+                    reader.setStringPool(stringPool);
+                    return reader.stream().map(this::finish);
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+                return Stream.empty();
+            }
+        }
+        return from(path).asNodeArray().values().stream();
+    }
+
+    /**
+     * Reads a snapshot written by {@link #toSnapshot(Node, Path)}. Only the header is read up front, the
+     * rest of the tree is read from the mapped file as it is accessed, see {@link SnapshotReader}.
+     */
+    public Node fromSnapshot(Path snapshot) {
+        if (Files.exists(snapshot)) {
+            try (NodeReader reader = configure(new SnapshotReader(map(snapshot)))) {
+                return read(reader);
+            } catch (IOException | NodeError e) {
+                e.printStackTrace();
+            }
+        }
+        return Node.NULL;
+    }
+
+    /**
+     * Reads the snapshot of the source file if it was taken from the file at its current size and modified
+     * time. Otherwise reads the source file itself and replaces the snapshot with one of it, so that the
+     * next call is fast.
+     */
+    public Node fromCached(Path source, Path snapshot) {
+        if (!Files.exists(source)) {
+            return Node.NULL;
+        }
+        try {
+            long size = Files.size(source);
+            long modified = Files.getLastModifiedTime(source).toMillis();
+            if (Files.exists(snapshot)) {
+                try (SnapshotReader reader = new SnapshotReader(map(snapshot))) {
+                    if (reader.sourceSize() == size && reader.sourceModified() == modified) {
+                        return read(configure(reader));
+                    }
+                } catch (NodeError e) {
+                    // not a usable snapshot, so replace it
+                }
+            }
+            Node node = from(source);
+            if (node.isPresent()) {
+                SnapshotWriter.write(node, snapshot, size, modified);
+            }
+            return node;
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return Node.NULL;
+    }
+
+    /**
+     * Maps and reads each file concurrently, returning the results in the same order as the given paths
+     */
+    public List<Node> fromMapped(Collection<Path> paths) {
+        return paths.parallelStream().map(this::fromMapped).collect(Collectors.toList());
+    }
+
+    /**
+     * Reads only the values found at the given paths, skipping every other part of the input
+     */
+    public Map<NodePath, Node> select(InputStream inputStream, NodePath... paths) {
+        try (NodeReader reader = open(inputStream)) {
+            return reader.select(Arrays.asList(paths));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return Collections.emptyMap();
+    }
+
+    public Map<NodePath, Node> select(Path path, NodePath... paths) {
+        if (Files.exists(path)) {
+            try (NodeReader reader = reader(path)) {
+                return reader.select(Arrays.asList(paths));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        return Collections.emptyMap();
+    }
+
+    public Map<NodePath, Node> select(String in, NodePath... paths) {
+        try (NodeReader reader = open(ByteBuffer.wrap(in.getBytes(StringUtils.UTF_8)))) {
+            return reader.select(Arrays.asList(paths));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return Collections.emptyMap();
+    }
+
+    /**
+     * Opens a reader over the stream, for callers that want to walk the input with {@link NodeReader#nextEvent()}
+     */
+    public NodeReader reader(InputStream inputStream) {
+        return open(inputStream);
+    }
+
+    /**
+     * Opens a reader over the file, choosing between mapped, heap and streamed input as {@link #from(Path)} does
+     */
+    public NodeReader reader(Path path) throws IOException {
+        long size = Files.size(path);
+        if (size > Integer.MAX_VALUE) {
+            return open(Files.newInputStream(path));
+        }
+        if (size >= mapThreshold) {
+            return open(map(path));
+        }
+        return open(ByteBuffer.wrap(Files.readAllBytes(path)));
+    }
+
+    /**
+     * As {@link #from(Path)}, but leaves the caller to handle any failure
+     */
+    Node load(Path path) throws IOException {
+        try (NodeReader reader = reader(path)) {
+            return read(reader);
+        }
+    }
+
+    private Node read(NodeReader reader) throws IOException {
+        return finish(reader.readNode());
+    }
+
+    private Node finish(Node node) {
+        if (deduplicate) {
+            return new NodeDeduplicator().deduplicate(node);
+        }
+        return frozen ? node.freeze() : node;
+    }
+
+    private boolean readsJson() {
+        return readerProvider == ReaderProvider.JSON || readerProvider == ReaderProvider.JSON_BYTES || readerProvider == ReaderProvider.JSON_LAZY;
+    }
+
+    private NodeReader open(InputStream inputStream) {
+        return configure(readerProvider.get(inputStream));
+    }
+
+    private NodeReader open(ByteBuffer buffer) {
+        return configure(readerProvider.get(buffer));
+    }
+
+    private NodeReader configure(NodeReader reader) {
+        if (stringPool != null) {
+            reader.setStringPool(stringPool);
+        }
+        return reader;
+    }
+
+    private static ByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
     public Node from(File file) {
         if (file.exists()) {
-            try (NodeReader reader = readerProvider.get(new FileInputStream(file))) {
-                return reader.readNode();
+            try (NodeReader reader = open(new FileInputStream(file))) {
+                return read(reader);
             } catch (IOException e) {
                 e.printStackTrace();
             }
@@ -74,8 +353,8 @@ public class NodeAdapter {
     }
 
     public Node from(URL url) {
-        try (NodeReader reader = readerProvider.get(url.openConnection().getInputStream())) {
-            return reader.readNode();
+        try (NodeReader reader = open(url.openConnection().getInputStream())) {
+            return read(reader);
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -83,14 +362,78 @@ public class NodeAdapter {
     }
 
     public Node from(String in) {
-        try (NodeReader reader = readerProvider.get(new ByteArrayInputStream(in.getBytes("UTF-8")))) {
-            return reader.readNode();
+        try (NodeReader reader = open(ByteBuffer.wrap(in.getBytes(StringUtils.UTF_8)))) {
+            return read(reader);
         } catch (IOException e) {
             e.printStackTrace();
         }
         return Node.NULL;
     }
 
+    /**
+     * Reads the input straight into an instance of the type, without building a Node tree first, see
+     * {@link Codecs}. Returns null if the input is empty or can't be read.
+     */
+    public <T> T read(InputStream inputStream, Class<T> type) {
+        try (NodeReader reader = open(inputStream)) {
+            return Codecs.read(reader, type);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    public <T> T read(Path path, Class<T> type) {
+        if (Files.exists(path)) {
+            try (NodeReader reader = reader(path)) {
+                return Codecs.read(reader, type);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        return null;
+    }
+
+    public <T> T read(String in, Class<T> type) {
+        try (NodeReader reader = open(ByteBuffer.wrap(in.getBytes(StringUtils.UTF_8)))) {
+            return Codecs.read(reader, type);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * Writes the value straight to the stream, without building a Node tree first, see {@link Codecs}
+     */
+    public <T> void write(T value, OutputStream out) {
+        try (NodeWriter writer = writerProvider.get(out)) {
+            Codecs.write(writer, value);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public <T> String write(T value) {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (NodeWriter writer = writerProvider.get(out)) {
+                Codecs.write(writer, value);
+            }
+            return out.toString("UTF-8");
+        } catch (IOException e) {
+            return "{}";
+        }
+    }
+
+    /**
+     * Opens a writer over the stream, for callers that want to write a document incrementally with
+     * {@link NodeWriter#openObject()}, {@link NodeWriter#key(Object)}, {@link NodeWriter#value(Object)} etc
+     */
+    public NodeWriter writer(OutputStream outputStream) {
+        return writerProvider.get(outputStream);
+    }
+
     public String to(Node node) {
         try  {
             ByteArrayOutputStream out = new ByteArrayOutputStream();
@@ -137,6 +480,17 @@ public class NodeAdapter {
         }
     }
 
+    /**
+     * Writes the node to a snapshot file for {@link #fromSnapshot(Path)}, see {@link SnapshotWriter}
+     */
+    public void toSnapshot(Node node, Path snapshot) {
+        try {
+            SnapshotWriter.write(node, snapshot, -1, -1);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
     public static NodeAdapter json() {
         return builder().readJson().writeJson().build();
     }
@@ -153,6 +507,14 @@ public class NodeAdapter {
         return builder().readHocon().writeHoconCompact().build();
     }
 
+    /**
+     * Reads and writes the compact binary format, see {@link me.dags.data.binary.BinaryWriter}. The methods
+     * that read from or return a String don't apply to it.
+     */
+    public static NodeAdapter binary() {
+        return builder().readBinary().writeBinary().build();
+    }
+
     public static Builder builder() {
         return new Builder();
     }
@@ -161,17 +523,36 @@ public class NodeAdapter {
 
         private ReaderProvider reader = ReaderProvider.JSON;
         private WriterProvider writer = WriterProvider.JSON_PRETTY;
+        private long mapThreshold = DEFAULT_MAP_THRESHOLD;
+        private StringPool stringPool = null;
+        private boolean deduplicate = false;
+        private boolean frozen = false;
 
         public Builder readJson() {
             reader = ReaderProvider.JSON;
             return this;
         }
 
+        public Builder readJsonBytes() {
+            reader = ReaderProvider.JSON_BYTES;
+            return this;
+        }
+
+        public Builder readJsonLazy() {
+            reader = ReaderProvider.JSON_LAZY;
+            return this;
+        }
+
         public Builder readHocon() {
             reader = ReaderProvider.HOCON;
             return this;
         }
 
+        public Builder readBinary() {
+            reader = ReaderProvider.BINARY;
+            return this;
+        }
+
         public Builder writeJson() {
             writer = WriterProvider.JSON_PRETTY;
             return this;
@@ -182,6 +563,16 @@ public class NodeAdapter {
             return this;
         }
 
+        public Builder writeJsonUtf8() {
+            writer = WriterProvider.JSON_PRETTY_UTF8;
+            return this;
+        }
+
+        public Builder writeJsonCompactUtf8() {
+            writer = WriterProvider.JSON_COMPACT_UTF8;
+            return this;
+        }
+
         public Builder writeHocon() {
             writer = WriterProvider.HOCON_PRETTY;
             return this;
@@ -192,8 +583,51 @@ public class NodeAdapter {
             return this;
         }
 
+        public Builder writeBinary() {
+            writer = WriterProvider.BINARY;
+            return this;
+        }
+
+        public Builder mapThreshold(long bytes) {
+            mapThreshold = bytes;
+            return this;
+        }
+
+        /**
+         * Pools up to the given number of keys and short string values, evicting the least recently used
+         */
+        public Builder internStrings(int capacity) {
+            stringPool = new StringPool(capacity);
+            return this;
+        }
+
+        /**
+         * Uses an existing pool, which may be shared with other adapters
+         */
+        public Builder stringPool(StringPool pool) {
+            stringPool = pool;
+            return this;
+        }
+
+        /**
+         * Shares one frozen instance between the equal objects, arrays and values of each document read,
+         * see {@link NodeDeduplicator}
+         */
+        public Builder deduplicate() {
+            deduplicate = true;
+            return this;
+        }
+
+        /**
+         * Freezes each document read, see {@link Node#freeze()}
+         */
+        public Builder frozen() {
+            frozen = true;
+            return this;
+        }
+
         public NodeAdapter build() {
-            return new NodeAdapter(reader, writer);
+            return new NodeAdapter(reader, writer, mapThreshold, stringPool, deduplicate, frozen);
         }
     }
 }
@@ -0,0 +1,253 @@
+package me.dags.data;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded pool of Strings that readers check before creating a String from the chars they have scanned,
+ * so that keys and short values repeated across many documents share one instance. Once the pool is full,
+ * Strings that have not been used recently are evicted.
+ * Safe for use by several readers on different threads at once.
+ *
+ * @author dags <dags@dags.me>
+ */
+public class StringPool {
+
+    /**
+     * Strings longer than this are never pooled
+     */
+    public static final int MAX_LENGTH = 32;
+
+    private final int capacity;
+    private final Segment[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public StringPool(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1");
+        }
+        int count = Math.min(16, Integer.highestOneBit(capacity));
+        this.capacity = capacity;
+        this.segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(Math.max(1, capacity / count));
+        }
+    }
+
+    /**
+     * Returns the pooled String equal to the given chars, adding one if there isn't one yet
+     */
+    public String intern(char[] chars, int offset, int length) {
+        if (length > MAX_LENGTH) {
+            return new String(chars, offset, length);
+        }
+        int hash = 0;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        Segment segment = segment(hash);
+        String string = segment.find(chars, offset, length, hash);
+        if (string != null) {
+            hits.increment();
+            return string;
+        }
+        return segment.add(chars, offset, length, hash, null);
+    }
+
+    public String intern(String string) {
+        if (string.length() > MAX_LENGTH) {
+            return string;
+        }
+        int hash = string.hashCode();
+        Segment segment = segment(hash);
+        String pooled = segment.find(string, hash);
+        if (pooled != null) {
+            hits.increment();
+            return pooled;
+        }
+        return segment.add(null, 0, 0, hash, string);
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * The fraction of lookups that found a pooled String, or 0 if there have been none
+     */
+    public double hitRate() {
+        long hits = hits();
+        long total = hits + misses();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+        hits.reset();
+        misses.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("StringPool{size=%d, capacity=%d, hits=%d, misses=%d, hitRate=%.3f}", size(), capacity, hits(), misses(), hitRate());
+    }
+
+    private Segment segment(int hash) {
+        // the top bits of the scrambled hash pick the segment, the low bits of the hash pick a slot within it
+        return segments[((hash * 0x9E3779B9) >>> 24) & (segments.length - 1)];
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean matches(String string, char[] chars, int offset, int length) {
+        if (string.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (string.charAt(i) != chars[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * An open-addressed table of Strings with clock (second chance) eviction, an approximation of LRU that
+     * lets a hit simply mark its entry as used rather than reorder anything. Lookups read the table without
+     * locking: a String found there is always checked against the chars being looked up, and a lookup that
+     * misses during a concurrent change is retried under the lock.
+     */
+    private class Segment {
+
+        private final int capacity;
+        private final String[] table;
+        private final boolean[] used;
+        private int size = 0;
+        private int hand = 0;
+
+        private Segment(int capacity) {
+            this.capacity = capacity;
+            this.table = new String[Integer.highestOneBit(capacity * 4 - 1)];
+            this.used = new boolean[table.length];
+        }
+
+        private String find(char[] chars, int offset, int length, int hash) {
+            int mask = table.length - 1;
+            for (int slot = mix(hash) & mask, probes = 0; probes < table.length; slot = (slot + 1) & mask, probes++) {
+                String string = table[slot];
+                if (string == null) {
+                    return null;
+                }
+                if (string.hashCode() == hash && matches(string, chars, offset, length)) {
+                    used[slot] = true;
+                    return string;
+                }
+            }
+            return null;
+        }
+
+        private String find(String string, int hash) {
+            int mask = table.length - 1;
+            for (int slot = mix(hash) & mask, probes = 0; probes < table.length; slot = (slot + 1) & mask, probes++) {
+                String pooled = table[slot];
+                if (pooled == null) {
+                    return null;
+                }
+                if (pooled.hashCode() == hash && pooled.equals(string)) {
+                    used[slot] = true;
+                    return pooled;
+                }
+            }
+            return null;
+        }
+
+        private synchronized String add(char[] chars, int offset, int length, int hash, String string) {
+            String pooled = string == null ? find(chars, offset, length, hash) : find(string, hash);
+            if (pooled != null) {
+                hits.increment();
+                return pooled;
+            }
+            misses.increment();
+            if (size >= capacity) {
+                evict();
+            }
+            if (string == null) {
+                string = new String(chars, offset, length);
+            }
+            int mask = table.length - 1;
+            int slot = mix(hash) & mask;
+            while (table[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = string;
+            size++;
+            return string;
+        }
+
+        private void evict() {
+            int mask = table.length - 1;
+            while (true) {
+                hand = (hand + 1) & mask;
+                if (table[hand] != null) {
+                    if (!used[hand]) {
+                        remove(hand);
+                        return;
+                    }
+                    used[hand] = false;
+                }
+            }
+        }
+
+        /**
+         * Empties the slot, then shifts back any following entries that can no longer be reached from
+         * their home slot
+         */
+        private void remove(int slot) {
+            int mask = table.length - 1;
+            table[slot] = null;
+            used[slot] = false;
+            for (int next = (slot + 1) & mask; table[next] != null; next = (next + 1) & mask) {
+                int home = mix(table[next].hashCode()) & mask;
+                if (((next - home) & mask) >= ((next - slot) & mask)) {
+                    table[slot] = table[next];
+                    used[slot] = used[next];
+                    table[next] = null;
+                    used[next] = false;
+                    slot = next;
+                }
+            }
+            size--;
+        }
+
+        private synchronized int size() {
+            return size;
+        }
+
+        private synchronized void clear() {
+            Arrays.fill(table, null);
+            Arrays.fill(used, false);
+            size = 0;
+        }
+    }
+}
@@ -9,21 +9,60 @@ public class StringUtils {
 
     public static final Charset UTF_8 = Charset.forName("UTF-8");
 
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+    private static final char[][] ESCAPES = new char[128][];
+
+    static {
+        for (char c = 0; c < 0x20; c++) {
+            ESCAPES[c] = new char[]{'\\', 'u', '0', '0', hexDigit(c >> 4), hexDigit(c)};
+        }
+        ESCAPES['"'] = new char[]{'\\', '"'};
+        ESCAPES['\\'] = new char[]{'\\', '\\'};
+        ESCAPES['\n'] = new char[]{'\\', 'n'};
+        ESCAPES['\r'] = new char[]{'\\', 'r'};
+        ESCAPES['\t'] = new char[]{'\\', 't'};
+        ESCAPES['\b'] = new char[]{'\\', 'b'};
+        ESCAPES['\f'] = new char[]{'\\', 'f'};
+    }
+
     public String safeString(String s) {
-        return !s.matches("^[a-zA-Z0-9\\.\\_\\-]*$") || s.isEmpty() ? '"' + s + '"' : s;
+        return !s.matches("^[a-zA-Z0-9\\.\\_\\-]*$") || s.isEmpty() ? '"' + escapeString(s) + '"' : s;
     }
 
     public static String escapeString(String s) {
-        StringBuilder b = new StringBuilder(s.length() * 2);
-        for (char c : s.toCharArray()) {
-            if (c == '\n') {
-                b.append("\\n");
-            } else if (c >= 128 || c == '"' || c == '\\')
-                b.append("\\u").append(String.format("%04X", (int) c));
-            else
-                b.append(c);
+        StringBuilder b = null;
+        int start = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 128 && ESCAPES[c] == null) {
+                continue;
+            }
+            if (b == null) {
+                b = new StringBuilder(s.length() + 16);
+            }
+            b.append(s, start, i);
+            if (c < 128) {
+                b.append(ESCAPES[c]);
+            } else {
+                b.append('\\').append('u').append(hexDigit(c >> 12)).append(hexDigit(c >> 8)).append(hexDigit(c >> 4)).append(hexDigit(c));
+            }
+            start = i + 1;
         }
-        return b.toString();
+        return b == null ? s : b.append(s, start, s.length()).toString();
+    }
+
+    /**
+     * Returns the json escape sequence for an ASCII char, or null if it can be written as is or is not ASCII
+     */
+    public static char[] escape(char c) {
+        return c < 128 ? ESCAPES[c] : null;
+    }
+
+    /**
+     * Returns the upper-case hex digit for the lowest four bits of the value
+     */
+    public static char hexDigit(int value) {
+        return HEX[value & 0xF];
     }
 
     public static String unEscapeString(String st) {
@@ -0,0 +1,70 @@
+package me.dags.data.binary;
+
+import me.dags.data.node.NodeError;
+
+/**
+ * The tags of the binary format. Every value starts with a one byte tag:
+ * <pre>
+ * NULL, FALSE, TRUE      no payload
+ * LONG                   zig-zag encoded varint
+ * DOUBLE                 8 byte IEEE 754 bits, big-endian
+ * STRING                 varint byte length, UTF-8 bytes
+ * BIG_INTEGER            varint byte length, two's complement big-endian bytes
+ * BIG_DECIMAL            zig-zag varint scale, then the unscaled value as BIG_INTEGER's payload
+ * OBJECT                 varint entry count, then each key and value
+ * ARRAY                  varint element count, then each element
+ * LONG_ARRAY             varint element count, then each element as LONG's payload
+ * DOUBLE_ARRAY           varint element count, then each element as DOUBLE's payload
+ * OBJECT_START           keys and values until END, for objects written incrementally
+ * ARRAY_START            elements until END, for arrays written incrementally
+ * </pre>
+ * Keys are values like any other, though are usually strings.
+ *
+ * Values are read back as the node types the text readers produce, so the format isn't lossless for every
+ * value a Node can hold. Integer, Short and Byte values are widened to LONG and read back as whole numbers
+ * (NodeLong), and Float values are widened to DOUBLE. Strings held by a plain Node come back as NodeStrings.
+ * Any other type of value has no tag, and writing it throws a NodeError rather than turning it into a string.
+ *
+ * Snapshots, see {@link SnapshotWriter}, use the same tags in a layout that can be read in any order:
+ * <pre>
+ * header                 MAGIC, VERSION, source size, source modified time, dictionary position, root slot
+ * container bodies       tag, int count, then a slot per key and value (or per element, or 8 bytes per
+ *                        element for LONG_ARRAY and DOUBLE_ARRAY), each body written after its children
+ * dictionary             int count, an int position per string, then each string as int length, UTF-8 bytes
+ * </pre>
+ * A slot is a tag and an 8 byte payload: the value of a LONG or DOUBLE, the dictionary index of a STRING,
+ * BIG_INTEGER or BIG_DECIMAL (as its text), or the position of an OBJECT's or array's body. Every number is
+ * big-endian and every position is from the start of the file.
+ *
+ * @author dags <dags@dags.me>
+ */
+final class BinaryFormat {
+
+    static final int NULL = 0x00;
+    static final int FALSE = 0x01;
+    static final int TRUE = 0x02;
+    static final int LONG = 0x03;
+    static final int DOUBLE = 0x04;
+    static final int STRING = 0x05;
+    static final int BIG_INTEGER = 0x06;
+    static final int BIG_DECIMAL = 0x07;
+    static final int OBJECT = 0x08;
+    static final int ARRAY = 0x09;
+    static final int LONG_ARRAY = 0x0A;
+    static final int DOUBLE_ARRAY = 0x0B;
+    static final int OBJECT_START = 0x0C;
+    static final int ARRAY_START = 0x0D;
+    static final int END = 0x0E;
+
+    static final int SNAPSHOT_MAGIC = 0x4E445331;
+    static final int SNAPSHOT_VERSION = 1;
+    static final int HEADER_SIZE = 48;
+    static final int SLOT_SIZE = 9;
+
+    private BinaryFormat() {
+    }
+
+    static NodeError unsupported(Object value) {
+        return new NodeError("The binary format can't hold a value of type " + value.getClass().getName());
+    }
+}
@@ -0,0 +1,589 @@
+package me.dags.data.binary;
+
+import me.dags.data.node.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static me.dags.data.binary.BinaryFormat.*;
+
+/**
+ * Reads Nodes written by {@link BinaryWriter}. Input held in a byte array is read in place, anything else
+ * through a buffer that is refilled from the stream. Supports the event methods of {@link NodeReader},
+ * skipping strings and typed arrays by their length rather than by scanning them.
+ *
+ * @author dags <dags@dags.me>
+ */
+public class BinaryReader extends NodeReader {
+
+    private static final int BLOCK_SIZE = 8192;
+
+    private static final int OBJECT_KEY = 0;
+    private static final int OBJECT_VALUE = 1;
+    private static final int ELEMENTS = 2;
+    private static final int LONGS = 3;
+    private static final int DOUBLES = 4;
+
+    private final InputStream in;
+    private byte[] bytes;
+    private int index;
+    private int limit;
+    private long consumed = 0;
+
+    private int[] frames = new int[16];
+    // the number of entries or elements left in each open object/array, or -1 if it ends with END
+    private long[] remaining = new long[16];
+    private int depth = -1;
+    private NodeEvent event = null;
+    private Node current = Node.NULL;
+
+    public BinaryReader(InputStream inputStream) {
+        this.in = inputStream;
+        this.bytes = new byte[BLOCK_SIZE];
+        this.index = 0;
+        this.limit = 0;
+    }
+
+    public BinaryReader(byte[] bytes) {
+        this(bytes, 0, bytes.length);
+    }
+
+    public BinaryReader(byte[] bytes, int offset, int length) {
+        this.in = null;
+        this.bytes = bytes;
+        this.index = offset;
+        this.limit = offset + length;
+        this.consumed = -offset;
+    }
+
+    @Override
+    public Node readNode() throws IOException {
+        if (!ensure(1)) {
+            return Node.NULL;
+        }
+        return readValue(readByte());
+    }
+
+    @Override
+    public NodeEvent nextEvent() throws IOException {
+        if (depth < 0) {
+            depth = 0;
+            if (!ensure(1)) {
+                return event = NodeEvent.END_DOCUMENT;
+            }
+            return start(readByte());
+        }
+        if (depth == 0) {
+            return event = NodeEvent.END_DOCUMENT;
+        }
+        int top = depth - 1;
+        switch (frames[top]) {
+            case OBJECT_KEY:
+                if (atEnd(top, true)) {
+                    depth--;
+                    return event = NodeEvent.END_OBJECT;
+                }
+                frames[top] = OBJECT_VALUE;
+                current = readValue(readByte());
+                return event = NodeEvent.KEY;
+            case OBJECT_VALUE:
+                frames[top] = OBJECT_KEY;
+                return start(readByte());
+            case ELEMENTS:
+                if (atEnd(top, true)) {
+                    depth--;
+                    return event = NodeEvent.END_ARRAY;
+                }
+                return start(readByte());
+            default:
+                if (atEnd(top, true)) {
+                    depth--;
+                    return event = NodeEvent.END_ARRAY;
+                }
+                current = frames[top] == LONGS ? newNode(readLong()) : newNode(readDouble());
+                return event = NodeEvent.VALUE;
+        }
+    }
+
+    @Override
+    public NodeEvent currentEvent() {
+        return event;
+    }
+
+    @Override
+    public int depth() {
+        return Math.max(depth, 0);
+    }
+
+    @Override
+    public Node readSubtree() throws IOException {
+        if (event != NodeEvent.START_OBJECT && event != NodeEvent.START_ARRAY) {
+            return nodeValue();
+        }
+        int top = depth - 1;
+        long count = remaining[top];
+        Node node;
+        switch (frames[top]) {
+            case OBJECT_KEY:
+                node = readObject(count);
+                break;
+            case ELEMENTS:
+                node = readArray(count);
+                break;
+            case LONGS:
+                node = readLongs(count);
+                break;
+            default:
+                node = readDoubles(count);
+                break;
+        }
+        depth--;
+        event = node.isNodeObject() ? NodeEvent.END_OBJECT : NodeEvent.END_ARRAY;
+        return node;
+    }
+
+    @Override
+    public boolean skipValue() throws IOException {
+        if (depth < 0) {
+            depth = 0;
+            if (!ensure(1)) {
+                return false;
+            }
+            skipValue(readByte());
+        } else if (depth == 0) {
+            return false;
+        } else {
+            int top = depth - 1;
+            switch (frames[top]) {
+                case OBJECT_VALUE:
+                    frames[top] = OBJECT_KEY;
+                    skipValue(readByte());
+                    break;
+                case OBJECT_KEY:
+                    // no key has been read, so skip the whole of the next entry
+                    if (atEnd(top, false)) {
+                        return false;
+                    }
+                    skipValue(readByte());
+                    skipValue(readByte());
+                    break;
+                case ELEMENTS:
+                    if (atEnd(top, false)) {
+                        return false;
+                    }
+                    skipValue(readByte());
+                    break;
+                default:
+                    if (atEnd(top, false)) {
+                        return false;
+                    }
+                    skipElement(frames[top]);
+                    break;
+            }
+        }
+        current = Node.NULL;
+        event = NodeEvent.VALUE;
+        return true;
+    }
+
+    @Override
+    public void skipChildren() throws IOException {
+        if (depth <= 0) {
+            return;
+        }
+        int top = depth - 1;
+        int frame = frames[top];
+        if (frame == OBJECT_VALUE) {
+            skipValue(readByte());
+        }
+        while (!atEnd(top, true)) {
+            if (frame == OBJECT_KEY || frame == OBJECT_VALUE) {
+                skipValue(readByte());
+                skipValue(readByte());
+            } else if (frame == ELEMENTS) {
+                skipValue(readByte());
+            } else {
+                skipElement(frame);
+            }
+        }
+        depth--;
+        event = frame == OBJECT_KEY || frame == OBJECT_VALUE ? NodeEvent.END_OBJECT : NodeEvent.END_ARRAY;
+    }
+
+    @Override
+    public Node nodeValue() {
+        return event == NodeEvent.KEY || event == NodeEvent.VALUE ? current : Node.NULL;
+    }
+
+    @Override
+    protected long position() {
+        return consumed + index;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (in != null) {
+            in.close();
+        }
+    }
+
+    private NodeEvent start(int tag) throws IOException {
+        switch (tag) {
+            case OBJECT:
+                push(OBJECT_KEY, readCount());
+                return event = NodeEvent.START_OBJECT;
+            case OBJECT_START:
+                push(OBJECT_KEY, -1);
+                return event = NodeEvent.START_OBJECT;
+            case ARRAY:
+                push(ELEMENTS, readCount());
+                return event = NodeEvent.START_ARRAY;
+            case ARRAY_START:
+                push(ELEMENTS, -1);
+                return event = NodeEvent.START_ARRAY;
+            case LONG_ARRAY:
+                push(LONGS, readCount());
+                return event = NodeEvent.START_ARRAY;
+            case DOUBLE_ARRAY:
+                push(DOUBLES, readCount());
+                return event = NodeEvent.START_ARRAY;
+            default:
+                current = readValue(tag);
+                return event = NodeEvent.VALUE;
+        }
+    }
+
+    private void push(int frame, long count) {
+        if (depth == frames.length) {
+            frames = Arrays.copyOf(frames, depth * 2);
+            remaining = Arrays.copyOf(remaining, depth * 2);
+        }
+        frames[depth] = frame;
+        remaining[depth] = count;
+        depth++;
+    }
+
+    /**
+     * Whether the open object/array has no more entries or elements. If consume is true the END marker is
+     * consumed, or the count of those remaining reduced by the one about to be read.
+     */
+    private boolean atEnd(int top, boolean consume) throws IOException {
+        long count = remaining[top];
+        if (count < 0) {
+            if (!ensure(1)) {
+                return true;
+            }
+            if ((bytes[index] & 0xFF) == END) {
+                if (consume) {
+                    index++;
+                }
+                return true;
+            }
+            return false;
+        }
+        if (count == 0) {
+            return true;
+        }
+        remaining[top] = count - 1;
+        return false;
+    }
+
+    private Node readValue(int tag) throws IOException {
+        switch (tag) {
+            case NULL:
+                return Node.NULL;
+            case FALSE:
+                return Node.FALSE;
+            case TRUE:
+                return Node.TRUE;
+            case LONG:
+                return newNode(readLong());
+            case DOUBLE:
+                return newNode(readDouble());
+            case STRING:
+                return newNode(readStringValue());
+            case BIG_INTEGER:
+                return newNode((Object) new BigInteger(readBytes()));
+            case BIG_DECIMAL:
+                int scale = (int) unZigZag(readVarint());
+                return newNode((Object) new BigDecimal(new BigInteger(readBytes()), scale));
+            case OBJECT:
+                return readObject(readCount());
+            case OBJECT_START:
+                return readObject(-1);
+            case ARRAY:
+                return readArray(readCount());
+            case ARRAY_START:
+                return readArray(-1);
+            case LONG_ARRAY:
+                return readLongs(readCount());
+            case DOUBLE_ARRAY:
+                return readDoubles(readCount());
+            default:
+                throw new NodeError("Unexpected tag " + tag + " at position " + (position() - 1));
+        }
+    }
+
+    private NodeObject readObject(long count) throws IOException {
+        NodeObject object = newObject();
+        while (count < 0 ? !atEndMarker() : count-- > 0) {
+            Node key = readValue(readByte());
+            putEntry(object, key, readValue(readByte()));
+        }
+        return object;
+    }
+
+    private NodeArray readArray(long count) throws IOException {
+        NodeArray array = new NodeArray();
+        while (count < 0 ? !atEndMarker() : count-- > 0) {
+            array.add(readValue(readByte()));
+        }
+        return array;
+    }
+
+    private NodeArray readLongs(long count) throws IOException {
+        int size = checkCount(count, 1);
+        long[] values = new long[initialCapacity(size)];
+        for (int i = 0; i < size; i++) {
+            if (i == values.length) {
+                values = Arrays.copyOf(values, grow(i, size));
+            }
+            values[i] = readLong();
+        }
+        return NodeArray.ofLongs(values);
+    }
+
+    private NodeArray readDoubles(long count) throws IOException {
+        int size = checkCount(count, 8);
+        double[] values = new double[initialCapacity(size)];
+        for (int i = 0; i < size; i++) {
+            if (i == values.length) {
+                values = Arrays.copyOf(values, grow(i, size));
+            }
+            values[i] = readDouble();
+        }
+        return NodeArray.ofDoubles(values);
+    }
+
+    /**
+     * Array capacity to start from for a declared size. Input in memory has already been checked to hold that
+     * many elements, but a stream has not, so the array starts small and grows as elements actually arrive.
+     */
+    private int initialCapacity(int size) {
+        return in == null ? size : Math.min(size, BLOCK_SIZE);
+    }
+
+    private static int grow(int capacity, int size) {
+        return (int) Math.min(size, capacity * 2L);
+    }
+
+    /**
+     * Consumes the END marker of an incrementally written object/array if it is next
+     */
+    private boolean atEndMarker() throws IOException {
+        if (!ensure(1)) {
+            return true;
+        }
+        if ((bytes[index] & 0xFF) == END) {
+            index++;
+            return true;
+        }
+        return false;
+    }
+
+    private void skipValue(int tag) throws IOException {
+        switch (tag) {
+            case NULL:
+            case FALSE:
+            case TRUE:
+                return;
+            case LONG:
+                readVarint();
+                return;
+            case DOUBLE:
+                skipBytes(8);
+                return;
+            case STRING:
+            case BIG_INTEGER:
+                skipBytes(readVarint());
+                return;
+            case BIG_DECIMAL:
+                readVarint();
+                skipBytes(readVarint());
+                return;
+            case OBJECT:
+                for (long count = readCount() * 2; count > 0; count--) {
+                    skipValue(readByte());
+                }
+                return;
+            case ARRAY:
+                for (long count = readCount(); count > 0; count--) {
+                    skipValue(readByte());
+                }
+                return;
+            case OBJECT_START:
+            case ARRAY_START:
+                while (!atEndMarker()) {
+                    skipValue(readByte());
+                }
+                return;
+            case LONG_ARRAY:
+                for (long count = readCount(); count > 0; count--) {
+                    readVarint();
+                }
+                return;
+            case DOUBLE_ARRAY:
+                skipBytes(readCount() * 8);
+                return;
+            default:
+                throw new NodeError("Unexpected tag " + tag + " at position " + (position() - 1));
+        }
+    }
+
+    private void skipElement(int frame) throws IOException {
+        if (frame == LONGS) {
+            readVarint();
+        } else {
+            skipBytes(8);
+        }
+    }
+
+    private String readStringValue() throws IOException {
+        int length = checkCount(readVarint(), 1);
+        if (!ensure(length)) {
+            throw endOfInput();
+        }
+        int end = index + length;
+        resetBuffer();
+        for (int i = index; i < end; i++) {
+            byte b = bytes[i];
+            if (b < 0) {
+                String string = new String(bytes, index, length, StandardCharsets.UTF_8);
+                index = end;
+                return stringPool() != null ? stringPool().intern(string) : string;
+            }
+            appendToBuffer((char) b);
+        }
+        index = end;
+        return bufferToString();
+    }
+
+    private byte[] readBytes() throws IOException {
+        int length = checkCount(readVarint(), 1);
+        if (!ensure(length)) {
+            throw endOfInput();
+        }
+        byte[] value = Arrays.copyOfRange(bytes, index, index + length);
+        index += length;
+        return value;
+    }
+
+    private long readCount() throws IOException {
+        long count = readVarint();
+        if (count < 0) {
+            throw new NodeError("Invalid size at position " + position());
+        }
+        return count;
+    }
+
+    /**
+     * Checks the declared size of an array or string, each element of which takes at least {@code minBytes}.
+     * Input held in memory must have that many bytes left, so a corrupt size can't force a huge allocation.
+     */
+    private int checkCount(long count, int minBytes) {
+        if (count < 0 || count > Integer.MAX_VALUE - 8) {
+            throw new NodeError("Invalid size " + count + " at position " + position());
+        }
+        if (in == null && count * minBytes > limit - index) {
+            throw new NodeError("Size " + count + " at position " + position() + " exceeds the remaining input");
+        }
+        return (int) count;
+    }
+
+    private long readLong() throws IOException {
+        return unZigZag(readVarint());
+    }
+
+    private double readDouble() throws IOException {
+        if (!ensure(8)) {
+            throw endOfInput();
+        }
+        long bits = 0;
+        for (int i = 0; i < 8; i++) {
+            bits = (bits << 8) | (bytes[index++] & 0xFF);
+        }
+        return Double.longBitsToDouble(bits);
+    }
+
+    private long readVarint() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if (b < 0x80) {
+                return value;
+            }
+        }
+        throw new NodeError("Malformed varint at position " + position());
+    }
+
+    private int readByte() throws IOException {
+        if (index < limit || ensure(1)) {
+            return bytes[index++] & 0xFF;
+        }
+        throw endOfInput();
+    }
+
+    private void skipBytes(long count) throws IOException {
+        while (count > 0) {
+            if (index == limit && !ensure(1)) {
+                throw endOfInput();
+            }
+            int step = (int) Math.min(count, limit - index);
+            index += step;
+            count -= step;
+        }
+    }
+
+    /**
+     * Ensures at least {@code required} unread bytes are buffered, reading from the stream if there is one
+     */
+    private boolean ensure(int required) throws IOException {
+        if (limit - index >= required) {
+            return true;
+        }
+        if (in == null) {
+            return false;
+        }
+        if (index > 0) {
+            System.arraycopy(bytes, index, bytes, 0, limit - index);
+            consumed += index;
+            limit -= index;
+            index = 0;
+        }
+        while (limit < required) {
+            if (limit == bytes.length) {
+                // grow as bytes arrive, rather than trusting a length read from the input up front
+                bytes = Arrays.copyOf(bytes, (int) Math.min(required, bytes.length * 2L));
+            }
+            int read = in.read(bytes, limit, bytes.length - limit);
+            if (read < 0) {
+                return false;
+            }
+            limit += read;
+        }
+        return true;
+    }
+
+    private NodeError endOfInput() {
+        return new NodeError("Unexpected end of input at position " + position());
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
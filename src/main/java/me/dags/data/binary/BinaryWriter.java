@@ -0,0 +1,338 @@
+package me.dags.data.binary;
+
+import me.dags.data.node.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+
+import static me.dags.data.binary.BinaryFormat.*;
+
+/**
+ * Writes Nodes in the compact binary format described by {@link BinaryFormat}, for exchanging documents
+ * between services that both use this library. Whole node trees are written with their sizes up front, and
+ * packed arrays of numbers as typed arrays. Objects and arrays opened through the streaming methods are
+ * written with an end marker instead, as their sizes aren't known in advance.
+ *
+ * @author dags <dags@dags.me>
+ */
+public class BinaryWriter extends NodeWriter {
+
+    private static final int KEY = 0;
+    private static final int VALUE = 1;
+    private static final int ELEMENT = 2;
+
+    private int[] frames = new int[16];
+    private int depth = 0;
+    private byte[] scratch = new byte[256];
+
+    public BinaryWriter(OutputStream outputStream) {
+        super(outputStream);
+    }
+
+    @Override
+    public NodeWriter openObject() throws IOException {
+        beginValue();
+        appendByte(OBJECT_START);
+        push(KEY);
+        return this;
+    }
+
+    @Override
+    public NodeWriter closeObject() throws IOException {
+        if (depth == 0 || frames[depth - 1] != KEY) {
+            throw new NodeError("Attempted to close a NodeObject that is not open!");
+        }
+        depth--;
+        appendByte(END);
+        return this;
+    }
+
+    @Override
+    public NodeWriter openArray() throws IOException {
+        beginValue();
+        appendByte(ARRAY_START);
+        push(ELEMENT);
+        return this;
+    }
+
+    @Override
+    public NodeWriter closeArray() throws IOException {
+        if (depth == 0 || frames[depth - 1] != ELEMENT) {
+            throw new NodeError("Attempted to close a NodeArray that is not open!");
+        }
+        depth--;
+        appendByte(END);
+        return this;
+    }
+
+    @Override
+    public NodeWriter key(Object key) throws IOException {
+        beginKey();
+        writeNode(Node.of(key));
+        return this;
+    }
+
+    @Override
+    public NodeWriter key(String key) throws IOException {
+        beginKey();
+        writeStringValue(key);
+        return this;
+    }
+
+    @Override
+    public NodeWriter value(Object value) throws IOException {
+        beginValue();
+        writeNode(Node.of(value));
+        return this;
+    }
+
+    @Override
+    public NodeWriter value(String value) throws IOException {
+        beginValue();
+        writeStringValue(value);
+        return this;
+    }
+
+    @Override
+    public NodeWriter value(long value) throws IOException {
+        beginValue();
+        appendByte(LONG);
+        writeVarint(zigZag(value));
+        return this;
+    }
+
+    @Override
+    public NodeWriter value(double value) throws IOException {
+        beginValue();
+        appendByte(DOUBLE);
+        writeFixed(Double.doubleToRawLongBits(value));
+        return this;
+    }
+
+    @Override
+    public NodeWriter value(boolean value) throws IOException {
+        beginValue();
+        appendByte(value ? TRUE : FALSE);
+        return this;
+    }
+
+    @Override
+    protected void writeNode(Node node) throws IOException {
+        if (node.isNodeObject()) {
+            writeObject(node.asNodeObject());
+        } else if (node.isNodeArray()) {
+            writeArray(node.asNodeArray());
+        } else {
+            writePrimitive(node);
+        }
+    }
+
+    @Override
+    protected void writeObject(NodeObject node) throws IOException {
+        appendByte(OBJECT);
+        writeVarint(node.count());
+        for (Map.Entry<Node, Node> entry : node.entries()) {
+            writeNode(entry.getKey());
+            writeNode(entry.getValue());
+        }
+    }
+
+    @Override
+    protected void writeArray(NodeArray node) throws IOException {
+        if (node.isPackedLongs()) {
+            long[] values = node.toLongArray();
+            appendByte(LONG_ARRAY);
+            writeVarint(values.length);
+            for (long value : values) {
+                writeVarint(zigZag(value));
+            }
+        } else if (node.isPackedDoubles()) {
+            double[] values = node.toDoubleArray();
+            appendByte(DOUBLE_ARRAY);
+            writeVarint(values.length);
+            for (double value : values) {
+                writeFixed(Double.doubleToRawLongBits(value));
+            }
+        } else {
+            appendByte(ARRAY);
+            writeVarint(node.count());
+            for (Node value : node.values()) {
+                writeNode(value);
+            }
+        }
+    }
+
+    @Override
+    protected void writePrimitive(Node node) throws IOException {
+        if (!node.isPresent()) {
+            appendByte(NULL);
+        } else if (node instanceof NodeString) {
+            writeStringValue(node.asString());
+        } else if (node instanceof NodeLong) {
+            appendByte(LONG);
+            writeVarint(zigZag(node.asLong()));
+        } else if (node instanceof NodeDouble) {
+            appendByte(DOUBLE);
+            writeFixed(Double.doubleToRawLongBits(node.asDouble()));
+        } else {
+            writeObjectValue(node.asObject());
+        }
+    }
+
+    @Override
+    public void writeString(String string) throws IOException {
+        writeStringValue(string);
+    }
+
+    private void writeObjectValue(Object value) throws IOException {
+        if (value instanceof Boolean) {
+            appendByte((Boolean) value ? TRUE : FALSE);
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            appendByte(LONG);
+            writeVarint(zigZag(((Number) value).longValue()));
+        } else if (value instanceof Double || value instanceof Float) {
+            appendByte(DOUBLE);
+            writeFixed(Double.doubleToRawLongBits(((Number) value).doubleValue()));
+        } else if (value instanceof BigInteger) {
+            appendByte(BIG_INTEGER);
+            writeBytes(((BigInteger) value).toByteArray());
+        } else if (value instanceof BigDecimal) {
+            BigDecimal decimal = (BigDecimal) value;
+            appendByte(BIG_DECIMAL);
+            writeVarint(zigZag(decimal.scale()));
+            writeBytes(decimal.unscaledValue().toByteArray());
+        } else if (value instanceof String) {
+            writeStringValue((String) value);
+        } else {
+            throw unsupported(value);
+        }
+    }
+
+    private void writeStringValue(String string) throws IOException {
+        if (string == null) {
+            appendByte(NULL);
+            return;
+        }
+        appendByte(STRING);
+        int length = string.length();
+        if (length > scratch.length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        // copies ASCII strings, the common case, in one pass, and encodes anything else in a second
+        for (int i = 0; i < length; i++) {
+            char c = string.charAt(i);
+            if (c >= 0x80) {
+                writeBytes(string.getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            scratch[i] = (byte) c;
+        }
+        writeVarint(length);
+        appendBytes(scratch, 0, length);
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+        writeVarint(bytes.length);
+        appendBytes(bytes, 0, bytes.length);
+    }
+
+    private void writeVarint(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            appendByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        appendByte((int) value);
+    }
+
+    private void writeFixed(long bits) throws IOException {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            appendByte((int) (bits >>> shift));
+        }
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private void beginKey() {
+        if (depth == 0 || frames[depth - 1] != KEY) {
+            throw new NodeError("Attempted to write a key outside of an object entry!");
+        }
+        frames[depth - 1] = VALUE;
+    }
+
+    private void beginValue() {
+        if (depth == 0) {
+            return;
+        }
+        int frame = frames[depth - 1];
+        if (frame == KEY) {
+            throw new NodeError("Attempted to write an object value without a key!");
+        }
+        if (frame == VALUE) {
+            frames[depth - 1] = KEY;
+        }
+    }
+
+    private void push(int frame) {
+        if (depth == frames.length) {
+            frames = Arrays.copyOf(frames, depth * 2);
+        }
+        frames[depth++] = frame;
+    }
+
+    @Override
+    public String indent() {
+        return "";
+    }
+
+    @Override
+    public String beginArray() {
+        return "";
+    }
+
+    @Override
+    public String endArray() {
+        return "";
+    }
+
+    @Override
+    public String beginObject() {
+        return "";
+    }
+
+    @Override
+    public String endObject() {
+        return "";
+    }
+
+    @Override
+    public String keySeparator(Node key, Node value) {
+        return "";
+    }
+
+    @Override
+    public String arraySeparator(Node value) {
+        return "";
+    }
+
+    @Override
+    public String elementSeparator() {
+        return "";
+    }
+
+    @Override
+    public String padding() {
+        return "";
+    }
+
+    @Override
+    public String lineBreak() {
+        return "";
+    }
+}
@@ -0,0 +1,168 @@
+package me.dags.data.binary;
+
+import me.dags.data.StringPool;
+import me.dags.data.node.*;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static me.dags.data.binary.BinaryFormat.*;
+
+/**
+ * Reads a snapshot written by {@link SnapshotWriter}. readNode() returns as soon as the header has been
+ * checked: objects and arrays are only read from the buffer when first accessed, and each dictionary string
+ * is decoded once, on first use, and shared by every key and value that holds it. The buffer, usually a
+ * read-only mapping of the file, is retained until every object and array has been loaded.
+ * Loading is not synchronized, see {@link Node#freeze()} for sharing a tree between threads.
+ * Snapshots are read as a whole, so the event methods are not supported.
+ *
+ * @author dags <dags@dags.me>
+ */
+public class SnapshotReader extends NodeReader {
+
+    private final ByteBuffer buffer;
+    private final long sourceSize;
+    private final long sourceModified;
+    private final int dictionary;
+    private final Node[] strings;
+    private final Snapshot loader = new Snapshot();
+
+    public SnapshotReader(ByteBuffer buffer) {
+        this.buffer = buffer.duplicate();
+        if (this.buffer.limit() < HEADER_SIZE || this.buffer.getInt(0) != SNAPSHOT_MAGIC) {
+            throw new NodeError("Not a snapshot");
+        }
+        if (this.buffer.getInt(4) != SNAPSHOT_VERSION) {
+            throw new NodeError("Unsupported snapshot version " + this.buffer.getInt(4));
+        }
+        long dictionary = this.buffer.getLong(24);
+        if (dictionary < HEADER_SIZE || dictionary > this.buffer.limit() - 4) {
+            throw new NodeError("Corrupt snapshot: dictionary position " + dictionary + " is out of bounds");
+        }
+        this.sourceSize = this.buffer.getLong(8);
+        this.sourceModified = this.buffer.getLong(16);
+        this.dictionary = (int) dictionary;
+        this.strings = new Node[this.buffer.getInt(this.dictionary)];
+    }
+
+    /**
+     * The size of the file the snapshot was taken from, or -1 if it wasn't taken from a file
+     */
+    public long sourceSize() {
+        return sourceSize;
+    }
+
+    /**
+     * The modified time, in millis, of the file the snapshot was taken from, or -1 if it wasn't taken from a file
+     */
+    public long sourceModified() {
+        return sourceModified;
+    }
+
+    @Override
+    public Node readNode() throws IOException {
+        return slot(32);
+    }
+
+    @Override
+    public NodeEvent nextEvent() throws IOException {
+        throw new NodeError("Snapshots are read with readNode()");
+    }
+
+    @Override
+    public boolean skipValue() throws IOException {
+        throw new NodeError("Snapshots are read with readNode()");
+    }
+
+    @Override
+    public void skipChildren() throws IOException {
+        throw new NodeError("Snapshots are read with readNode()");
+    }
+
+    private Node slot(int position) {
+        int tag = buffer.get(position) & 0xFF;
+        long payload = buffer.getLong(position + 1);
+        switch (tag) {
+            case NULL:
+                return Node.NULL;
+            case FALSE:
+                return Node.FALSE;
+            case TRUE:
+                return Node.TRUE;
+            case LONG:
+                return newNode(payload);
+            case DOUBLE:
+                return newNode(Double.longBitsToDouble(payload));
+            case STRING:
+                return string((int) payload);
+            case BIG_INTEGER:
+                return newNode((Object) new BigInteger(string((int) payload).asString()));
+            case BIG_DECIMAL:
+                return newNode((Object) new BigDecimal(string((int) payload).asString()));
+            case OBJECT:
+                return lazyObject(loader, body(payload, OBJECT));
+            case ARRAY:
+            case LONG_ARRAY:
+            case DOUBLE_ARRAY:
+                return lazyArray(loader, body(payload, tag));
+            default:
+                throw new NodeError("Corrupt snapshot: unexpected tag " + tag + " at position " + position);
+        }
+    }
+
+    private int body(long position, int tag) {
+        if (position < HEADER_SIZE || position >= dictionary || (buffer.get((int) position) & 0xFF) != tag) {
+            throw new NodeError("Corrupt snapshot: no body at position " + position);
+        }
+        return (int) position;
+    }
+
+    private Node string(int index) {
+        Node node = strings[index];
+        if (node == null) {
+            int position = buffer.getInt(dictionary + 4 + 4 * index);
+            int length = buffer.getInt(position);
+            byte[] bytes = new byte[length];
+            for (int i = 0; i < length; i++) {
+                bytes[i] = buffer.get(position + 4 + i);
+            }
+            String string = new String(bytes, StandardCharsets.UTF_8);
+            StringPool pool = stringPool();
+            strings[index] = node = newNode(pool != null ? pool.intern(string) : string);
+        }
+        return node;
+    }
+
+    private class Snapshot extends Loader {
+
+        @Override
+        protected void load(NodeObject object, int token) {
+            int count = buffer.getInt(token + 1);
+            for (int i = 0, position = token + 5; i < count; i++, position += SLOT_SIZE * 2) {
+                putEntry(object, slot(position), slot(position + SLOT_SIZE));
+            }
+        }
+
+        @Override
+        protected void load(NodeArray array, int token) {
+            int tag = buffer.get(token) & 0xFF;
+            int count = buffer.getInt(token + 1);
+            int position = token + 5;
+            for (int i = 0; i < count; i++) {
+                if (tag == LONG_ARRAY) {
+                    array.add(newNode(buffer.getLong(position)));
+                    position += 8;
+                } else if (tag == DOUBLE_ARRAY) {
+                    array.add(newNode(Double.longBitsToDouble(buffer.getLong(position))));
+                    position += 8;
+                } else {
+                    array.add(slot(position));
+                    position += SLOT_SIZE;
+                }
+            }
+        }
+    }
+}
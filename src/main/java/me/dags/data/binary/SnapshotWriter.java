@@ -0,0 +1,251 @@
+package me.dags.data.binary;
+
+import me.dags.data.node.*;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static me.dags.data.binary.BinaryFormat.*;
+
+/**
+ * Writes a Node tree to a snapshot file, which {@link SnapshotReader} maps and reads lazily so that even
+ * large trees are available almost immediately. Each distinct string, key or value, is stored once in a
+ * dictionary, and every object and array has fixed size slots so that any of them can be read on its own.
+ * The header records the size and modified time of the file the tree was read from, so that stale
+ * snapshots can be detected. Snapshots are limited to 2GB, the size of a single mapping.
+ *
+ * @author dags <dags@dags.me>
+ */
+public class SnapshotWriter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final Map<String, Integer> indices = new HashMap<>();
+    private final List<String> dictionary = new ArrayList<>();
+    private long position = 0;
+
+    private SnapshotWriter(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Writes the snapshot to a temporary file then moves it into place, so that a snapshot is never seen
+     * partially written
+     *
+     * @param sourceSize     the size of the file the node was read from, or -1
+     * @param sourceModified the modified time, in millis, of the file the node was read from, or -1
+     */
+    public static void write(Node node, Path snapshot, long sourceSize, long sourceModified) throws IOException {
+        Path dir = snapshot.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path temp = Files.createTempFile(dir, snapshot.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                new SnapshotWriter(channel).writeSnapshot(node, sourceSize, sourceModified);
+            }
+            Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private void writeSnapshot(Node root, long sourceSize, long sourceModified) throws IOException {
+        for (int i = 0; i < HEADER_SIZE; i++) {
+            putByte(0);
+        }
+        long rootBody = isContainer(root) ? writeBody(root) : 0;
+        // the root slot goes in the header, but may add a string to the dictionary so is filled in first
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(SNAPSHOT_MAGIC);
+        header.putInt(SNAPSHOT_VERSION);
+        header.putLong(sourceSize);
+        header.putLong(sourceModified);
+        header.putLong(position);
+        putSlot(header, root, rootBody);
+        writeDictionary();
+        flush();
+        header.clear();
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+    }
+
+    /**
+     * Writes the bodies of the container's children, then its own, returning its position
+     */
+    private long writeBody(Node node) throws IOException {
+        if (node.isNodeObject()) {
+            NodeObject object = node.asNodeObject();
+            int count = object.count();
+            Node[] entries = new Node[count * 2];
+            long[] bodies = new long[count * 2];
+            int i = 0;
+            for (Map.Entry<Node, Node> entry : object.entries()) {
+                entries[i] = entry.getKey();
+                entries[i + 1] = entry.getValue();
+                i += 2;
+            }
+            return writeSlots(OBJECT, count, entries, bodies);
+        }
+        NodeArray array = node.asNodeArray();
+        if (array.isPackedLongs()) {
+            long[] values = array.toLongArray();
+            long body = beginBody(LONG_ARRAY, values.length);
+            for (long value : values) {
+                putLong(value);
+            }
+            return body;
+        }
+        if (array.isPackedDoubles()) {
+            double[] values = array.toDoubleArray();
+            long body = beginBody(DOUBLE_ARRAY, values.length);
+            for (double value : values) {
+                putLong(Double.doubleToRawLongBits(value));
+            }
+            return body;
+        }
+        Node[] elements = array.values().toArray(new Node[0]);
+        return writeSlots(ARRAY, elements.length, elements, new long[elements.length]);
+    }
+
+    private long writeSlots(int tag, int count, Node[] nodes, long[] bodies) throws IOException {
+        for (int i = 0; i < nodes.length; i++) {
+            if (isContainer(nodes[i])) {
+                bodies[i] = writeBody(nodes[i]);
+            }
+        }
+        long body = beginBody(tag, count);
+        for (int i = 0; i < nodes.length; i++) {
+            ensure(SLOT_SIZE);
+            putSlot(buffer, nodes[i], bodies[i]);
+            position += SLOT_SIZE;
+        }
+        return body;
+    }
+
+    private long beginBody(int tag, int count) throws IOException {
+        long body = position;
+        putByte(tag);
+        putInt(count);
+        return body;
+    }
+
+    private void putSlot(ByteBuffer out, Node node, long body) {
+        if (node.isNodeObject()) {
+            out.put((byte) OBJECT).putLong(body);
+        } else if (node.isNodeArray()) {
+            NodeArray array = node.asNodeArray();
+            int tag = array.isPackedLongs() ? LONG_ARRAY : array.isPackedDoubles() ? DOUBLE_ARRAY : ARRAY;
+            out.put((byte) tag).putLong(body);
+        } else if (!node.isPresent()) {
+            out.put((byte) NULL).putLong(0);
+        } else if (node instanceof NodeString) {
+            out.put((byte) STRING).putLong(index(node.asString()));
+        } else if (node instanceof NodeLong) {
+            out.put((byte) LONG).putLong(node.asLong());
+        } else if (node instanceof NodeDouble) {
+            out.put((byte) DOUBLE).putLong(Double.doubleToRawLongBits(node.asDouble()));
+        } else {
+            Object value = node.asObject();
+            if (value instanceof Boolean) {
+                out.put((byte) ((Boolean) value ? TRUE : FALSE)).putLong(0);
+            } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                out.put((byte) LONG).putLong(((Number) value).longValue());
+            } else if (value instanceof Double || value instanceof Float) {
+                out.put((byte) DOUBLE).putLong(Double.doubleToRawLongBits(((Number) value).doubleValue()));
+            } else if (value instanceof BigInteger) {
+                out.put((byte) BIG_INTEGER).putLong(index(value.toString()));
+            } else if (value instanceof BigDecimal) {
+                out.put((byte) BIG_DECIMAL).putLong(index(value.toString()));
+            } else if (value instanceof String) {
+                out.put((byte) STRING).putLong(index((String) value));
+            } else {
+                throw unsupported(value);
+            }
+        }
+    }
+
+    private void writeDictionary() throws IOException {
+        byte[][] encoded = new byte[dictionary.size()][];
+        long offset = position + 4 + 4L * encoded.length;
+        putInt(encoded.length);
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = dictionary.get(i).getBytes(StandardCharsets.UTF_8);
+            putInt((int) Math.min(offset, Integer.MAX_VALUE));
+            offset += 4 + encoded[i].length;
+        }
+        for (byte[] bytes : encoded) {
+            putInt(bytes.length);
+            for (int i = 0; i < bytes.length; ) {
+                ensure(1);
+                int length = Math.min(bytes.length - i, buffer.remaining());
+                buffer.put(bytes, i, length);
+                position += length;
+                i += length;
+            }
+        }
+    }
+
+    private int index(String string) {
+        Integer index = indices.get(string);
+        if (index == null) {
+            index = dictionary.size();
+            indices.put(string, index);
+            dictionary.add(string);
+        }
+        return index;
+    }
+
+    private static boolean isContainer(Node node) {
+        return node.isNodeObject() || node.isNodeArray();
+    }
+
+    private void putByte(int b) throws IOException {
+        ensure(1);
+        buffer.put((byte) b);
+        position++;
+    }
+
+    private void putInt(int value) throws IOException {
+        ensure(4);
+        buffer.putInt(value);
+        position += 4;
+    }
+
+    private void putLong(long value) throws IOException {
+        ensure(8);
+        buffer.putLong(value);
+        position += 8;
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+        if (position > Integer.MAX_VALUE) {
+            throw new NodeError("Snapshot exceeds the 2GB limit of a single mapping");
+        }
+    }
+}
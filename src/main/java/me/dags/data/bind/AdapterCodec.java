@@ -0,0 +1,53 @@
+package me.dags.data.bind;
+
+import me.dags.data.node.Node;
+import me.dags.data.node.NodeError;
+import me.dags.data.node.NodeReader;
+import me.dags.data.node.NodeTypeAdapter;
+import me.dags.data.node.NodeTypeAdapters;
+import me.dags.data.node.NodeWriter;
+
+import java.io.IOException;
+
+/**
+ * Binds a type through the NodeTypeAdapter registered for it or a supertype, which converts the value's
+ * subtree in one step. A supertype's adapter must read back an instance of the bound type.
+ *
+ * @author dags <dags@dags.me>
+ */
+final class AdapterCodec<T> implements Codec<T> {
+
+    private final Class<T> type;
+    private final NodeTypeAdapter<? super T> adapter;
+
+    private AdapterCodec(Class<T> type, NodeTypeAdapter<? super T> adapter) {
+        this.type = type;
+        this.adapter = adapter;
+    }
+
+    /**
+     * The codec for the type, or null if no adapter is registered for it or its supertypes
+     */
+    static <T> AdapterCodec<T> of(Class<T> type) {
+        NodeTypeAdapter<? super T> adapter = NodeTypeAdapters.resolve(type);
+        return adapter == null ? null : new AdapterCodec<>(type, adapter);
+    }
+
+    @Override
+    public T read(NodeReader reader) throws IOException {
+        Node node = reader.readSubtree();
+        if (!node.isPresent()) {
+            return null;
+        }
+        Object value = adapter.fromNode(node);
+        if (value != null && !type.isInstance(value)) {
+            throw new NodeError("The adapter used for " + type.getName() + " read a " + value.getClass().getName());
+        }
+        return type.cast(value);
+    }
+
+    @Override
+    public void write(NodeWriter writer, T value) throws IOException {
+        writer.value(value == null ? Node.NULL : adapter.toNode(value));
+    }
+}
@@ -0,0 +1,202 @@
+package me.dags.data.bind;
+
+import me.dags.data.node.NodeEvent;
+import me.dags.data.node.NodeReader;
+import me.dags.data.node.NodeWriter;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Binds Java arrays to arrays. Arrays of longs, ints and doubles are read and written without boxing.
+ *
+ * @author dags <dags@dags.me>
+ */
+class ArrayCodec implements Codec<Object> {
+
+    private final Class<?> component;
+    private final Codec<Object> elements;
+
+    @SuppressWarnings("unchecked")
+    ArrayCodec(Class<?> component, Codec<?> elements) {
+        this.component = component;
+        this.elements = (Codec<Object>) elements;
+    }
+
+    static ArrayCodec of(Class<?> component) {
+        if (component == long.class) {
+            return new LongArrayCodec();
+        }
+        if (component == int.class) {
+            return new IntArrayCodec();
+        }
+        if (component == double.class) {
+            return new DoubleArrayCodec();
+        }
+        return new ArrayCodec(component, Codecs.of(component));
+    }
+
+    @Override
+    public Object read(NodeReader reader) throws IOException {
+        if (!begin(reader)) {
+            return null;
+        }
+        List<Object> list = new ArrayList<>();
+        while (reader.nextEvent() != NodeEvent.END_ARRAY) {
+            list.add(elements.read(reader));
+        }
+        Object array = Array.newInstance(component, list.size());
+        for (int i = 0; i < list.size(); i++) {
+            Array.set(array, i, list.get(i));
+        }
+        return array;
+    }
+
+    @Override
+    public void write(NodeWriter writer, Object value) throws IOException {
+        if (value == null) {
+            writer.value((Object) null);
+            return;
+        }
+        writer.openArray();
+        for (int i = 0, length = Array.getLength(value); i < length; i++) {
+            elements.write(writer, Array.get(value, i));
+        }
+        writer.closeArray();
+    }
+
+    /**
+     * Returns false if the value is null, or true if the reader is on the start of an array
+     */
+    boolean begin(NodeReader reader) {
+        if (Codecs.isNull(reader)) {
+            return false;
+        }
+        if (reader.currentEvent() != NodeEvent.START_ARRAY) {
+            throw Codecs.mismatch(reader, "an array", Array.newInstance(component, 0).getClass());
+        }
+        return true;
+    }
+
+    /**
+     * The next element, which must be a number
+     */
+    NodeEvent next(NodeReader reader) throws IOException {
+        NodeEvent event = reader.nextEvent();
+        if (event != NodeEvent.VALUE && event != NodeEvent.END_ARRAY) {
+            throw Codecs.mismatch(reader, "a number", component);
+        }
+        return event;
+    }
+
+    private static final class LongArrayCodec extends ArrayCodec {
+
+        private LongArrayCodec() {
+            super(long.class, null);
+        }
+
+        @Override
+        public Object read(NodeReader reader) throws IOException {
+            if (!begin(reader)) {
+                return null;
+            }
+            long[] array = new long[16];
+            int size = 0;
+            while (next(reader) == NodeEvent.VALUE) {
+                if (size == array.length) {
+                    array = Arrays.copyOf(array, size * 2);
+                }
+                array[size++] = ScalarCodec.toLong(reader.nodeValue(), long.class);
+            }
+            return Arrays.copyOf(array, size);
+        }
+
+        @Override
+        public void write(NodeWriter writer, Object value) throws IOException {
+            if (value == null) {
+                writer.value((Object) null);
+                return;
+            }
+            writer.openArray();
+            for (long element : (long[]) value) {
+                writer.value(element);
+            }
+            writer.closeArray();
+        }
+    }
+
+    private static final class IntArrayCodec extends ArrayCodec {
+
+        private IntArrayCodec() {
+            super(int.class, null);
+        }
+
+        @Override
+        public Object read(NodeReader reader) throws IOException {
+            if (!begin(reader)) {
+                return null;
+            }
+            int[] array = new int[16];
+            int size = 0;
+            while (next(reader) == NodeEvent.VALUE) {
+                if (size == array.length) {
+                    array = Arrays.copyOf(array, size * 2);
+                }
+                array[size++] = (int) ScalarCodec.toLong(reader.nodeValue(), int.class);
+            }
+            return Arrays.copyOf(array, size);
+        }
+
+        @Override
+        public void write(NodeWriter writer, Object value) throws IOException {
+            if (value == null) {
+                writer.value((Object) null);
+                return;
+            }
+            writer.openArray();
+            for (int element : (int[]) value) {
+                writer.value(element);
+            }
+            writer.closeArray();
+        }
+    }
+
+    private static final class DoubleArrayCodec extends ArrayCodec {
+
+        private DoubleArrayCodec() {
+            super(double.class, null);
+        }
+
+        @Override
+        public Object read(NodeReader reader) throws IOException {
+            if (!begin(reader)) {
+                return null;
+            }
+            double[] array = new double[16];
+            int size = 0;
+            while (next(reader) == NodeEvent.VALUE) {
+                if (size == array.length) {
+                    array = Arrays.copyOf(array, size * 2);
+                }
+                array[size++] = reader.doubleValue();
+            }
+            return Arrays.copyOf(array, size);
+        }
+
+        @Override
+        public void write(NodeWriter writer, Object value) throws IOException {
+            if (value == null) {
+                writer.value((Object) null);
+                return;
+            }
+            writer.openArray();
+            for (double element : (double[]) value) {
+                writer.value(element);
+            }
+            writer.closeArray();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package me.dags.data.bind;
+
+import me.dags.data.node.NodeReader;
+import me.dags.data.node.NodeWriter;
+
+import java.io.IOException;
+
+/**
+ * Reads and writes values of one type directly from a reader's events and to a writer's streaming methods,
+ * without building a Node tree in between. Codecs are created once per type and shared, so must be
+ * stateless and thread-safe. Custom codecs can be registered with {@link Codecs#register(Class, Codec)}.
+ *
+ * @author dags <dags@dags.me>
+ */
+public interface Codec<T> {
+
+    /**
+     * Reads a value whose first event (START_OBJECT, START_ARRAY or VALUE) the reader has just returned.
+     * The reader is left on the value's last event: its END_OBJECT or END_ARRAY, or the VALUE itself.
+     */
+    T read(NodeReader reader) throws IOException;
+
+    /**
+     * Writes the value as the root, the value of the writer's pending key, or the next array element
+     */
+    void write(NodeWriter writer, T value) throws IOException;
+}
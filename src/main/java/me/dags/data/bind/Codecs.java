@@ -0,0 +1,184 @@
+package me.dags.data.bind;
+
+import me.dags.data.node.*;
+
+import java.io.IOException;
+import java.lang.reflect.*;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Finds, creates and caches the {@link Codec} for each type. In order of preference a type is bound by:
+ * a codec registered for exactly that type; a {@link NodeTypeAdapter} registered for it or one of its
+ * supertypes; the built in codecs for Nodes, primitives, Strings, enums, arrays, Collections and Maps;
+ * or else field by field, as a POJO. Interfaces and Object are bound by the runtime type of each value
+ * written, and read as the plain Maps, Lists and values of {@link NodeTypeAdapters#deserialize(Node)}.
+ *
+ * Adapters and codecs should be registered before the types they affect are first bound, as a POJO's codec
+ * resolves the codecs of its fields once and keeps them.
+ *
+ * @author dags <dags@dags.me>
+ */
+public final class Codecs {
+
+    private static final Map<Class<?>, Codec<?>> codecs = new ConcurrentHashMap<>();
+    private static volatile ClassValue<Codec<?>> resolved = newCache();
+    private static volatile Map<Type, Codec<?>> generic = new ConcurrentHashMap<>();
+
+    private Codecs() {
+    }
+
+    /**
+     * Registers a codec for exactly the given type. Safe to call while other threads are binding.
+     */
+    public static <T> void register(Class<T> type, Codec<T> codec) {
+        codecs.put(type, codec);
+        resolved = newCache();
+        generic = new ConcurrentHashMap<>();
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> Codec<T> of(Class<T> type) {
+        return (Codec<T>) resolved.get(type);
+    }
+
+    /**
+     * The codec for a possibly generic type, such as a field's List&lt;Foo&gt; or Map&lt;String, Bar&gt;
+     */
+    public static Codec<?> of(Type type) {
+        if (type instanceof Class) {
+            return of((Class<?>) type);
+        }
+        Map<Type, Codec<?>> cache = generic;
+        Codec<?> codec = cache.get(type);
+        if (codec == null) {
+            codec = create(type);
+            Codec<?> existing = cache.putIfAbsent(type, codec);
+            if (existing != null) {
+                codec = existing;
+            }
+        }
+        return codec;
+    }
+
+    /**
+     * Reads the next value from the reader as the given type. Returns null at the end of the document.
+     */
+    public static <T> T read(NodeReader reader, Class<T> type) throws IOException {
+        return read(reader, of(type));
+    }
+
+    public static <T> T read(NodeReader reader, Codec<T> codec) throws IOException {
+        if (reader.nextEvent() == NodeEvent.END_DOCUMENT) {
+            return null;
+        }
+        return codec.read(reader);
+    }
+
+    /**
+     * Writes the value using the codec for its runtime type
+     */
+    @SuppressWarnings("unchecked")
+    public static void write(NodeWriter writer, Object value) throws IOException {
+        if (value == null) {
+            writer.value((Object) null);
+        } else {
+            ((Codec<Object>) of(value.getClass())).write(writer, value);
+        }
+    }
+
+    /**
+     * Whether the reader's current value is null
+     */
+    static boolean isNull(NodeReader reader) {
+        return reader.currentEvent() == NodeEvent.VALUE && !reader.nodeValue().isPresent();
+    }
+
+    static NodeError mismatch(NodeReader reader, String expected, Type type) {
+        return new NodeError("Expected " + expected + " for " + type.getTypeName() + " but found " + reader.currentEvent());
+    }
+
+    static Class<?> rawType(Type type) {
+        if (type instanceof Class) {
+            return (Class<?>) type;
+        }
+        if (type instanceof ParameterizedType) {
+            return rawType(((ParameterizedType) type).getRawType());
+        }
+        if (type instanceof GenericArrayType) {
+            return Array.newInstance(rawType(((GenericArrayType) type).getGenericComponentType()), 0).getClass();
+        }
+        if (type instanceof WildcardType) {
+            return rawType(((WildcardType) type).getUpperBounds()[0]);
+        }
+        if (type instanceof TypeVariable) {
+            return rawType(((TypeVariable<?>) type).getBounds()[0]);
+        }
+        return Object.class;
+    }
+
+    private static ClassValue<Codec<?>> newCache() {
+        return new ClassValue<Codec<?>>() {
+            @Override
+            protected Codec<?> computeValue(Class<?> type) {
+                return create(type);
+            }
+        };
+    }
+
+    private static Codec<?> create(Type type) {
+        if (type instanceof ParameterizedType) {
+            Class<?> raw = rawType(type);
+            Type[] arguments = ((ParameterizedType) type).getActualTypeArguments();
+            if (Collection.class.isAssignableFrom(raw) && arguments.length == 1) {
+                return new CollectionCodec(raw, arguments[0]);
+            }
+            if (Map.class.isAssignableFrom(raw) && arguments.length == 2) {
+                return new MapCodec(raw, arguments[0], arguments[1]);
+            }
+            return of(raw);
+        }
+        if (type instanceof GenericArrayType) {
+            Type component = ((GenericArrayType) type).getGenericComponentType();
+            return new ArrayCodec(rawType(component), of(component));
+        }
+        return of(rawType(type));
+    }
+
+    private static Codec<?> create(Class<?> type) {
+        Codec<?> codec = codecs.get(type);
+        if (codec != null) {
+            return codec;
+        }
+        if (Node.class.isAssignableFrom(type)) {
+            return new NodeCodec(type);
+        }
+        if (!type.isPrimitive()) {
+            codec = AdapterCodec.of(type);
+            if (codec != null) {
+                return codec;
+            }
+        }
+        codec = ScalarCodec.of(type);
+        if (codec != null) {
+            return codec;
+        }
+        if (type.isEnum() || (type.getSuperclass() != null && type.getSuperclass().isEnum())) {
+            return new EnumCodec(type.isEnum() ? type : type.getSuperclass());
+        }
+        if (type.isArray()) {
+            return ArrayCodec.of(type.getComponentType());
+        }
+        if (Collection.class.isAssignableFrom(type)) {
+            return new CollectionCodec(type, Object.class);
+        }
+        if (Map.class.isAssignableFrom(type)) {
+            return new MapCodec(type, Object.class, Object.class);
+        }
+        if (type == Object.class || type.isInterface()) {
+            return DynamicCodec.INSTANCE;
+        }
+        return new ObjectCodec<>(type);
+    }
+}
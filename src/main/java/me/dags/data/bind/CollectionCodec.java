@@ -0,0 +1,76 @@
+package me.dags.data.bind;
+
+import me.dags.data.node.NodeEvent;
+import me.dags.data.node.NodeReader;
+import me.dags.data.node.NodeWriter;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.*;
+
+/**
+ * Binds Collections to arrays. Declared interfaces are read as an ArrayList, LinkedHashSet, TreeSet or
+ * ArrayDeque as appropriate, and concrete types through their no-args constructor.
+ *
+ * @author dags <dags@dags.me>
+ */
+final class CollectionCodec implements Codec<Collection<Object>> {
+
+    private final Class<?> type;
+    private final MethodHandle constructor;
+    private final Codec<Object> elements;
+
+    @SuppressWarnings("unchecked")
+    CollectionCodec(Class<?> type, Type element) {
+        this.type = type;
+        this.constructor = ObjectCodec.constructor(implementation(type));
+        this.elements = (Codec<Object>) Codecs.of(element);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Collection<Object> read(NodeReader reader) throws IOException {
+        if (Codecs.isNull(reader)) {
+            return null;
+        }
+        if (reader.currentEvent() != NodeEvent.START_ARRAY) {
+            throw Codecs.mismatch(reader, "an array", type);
+        }
+        Collection<Object> collection = (Collection<Object>) ObjectCodec.construct(constructor, type);
+        while (reader.nextEvent() != NodeEvent.END_ARRAY) {
+            collection.add(elements.read(reader));
+        }
+        return collection;
+    }
+
+    @Override
+    public void write(NodeWriter writer, Collection<Object> value) throws IOException {
+        if (value == null) {
+            writer.value((Object) null);
+            return;
+        }
+        writer.openArray();
+        for (Object element : value) {
+            elements.write(writer, element);
+        }
+        writer.closeArray();
+    }
+
+    private static Class<?> implementation(Class<?> type) {
+        if (!type.isInterface() && !Modifier.isAbstract(type.getModifiers())) {
+            return type;
+        }
+        if (SortedSet.class.isAssignableFrom(type)) {
+            return TreeSet.class;
+        }
+        if (Set.class.isAssignableFrom(type)) {
+            return LinkedHashSet.class;
+        }
+        if (Queue.class.isAssignableFrom(type)) {
+            return ArrayDeque.class;
+        }
+        return ArrayList.class;
+    }
+}
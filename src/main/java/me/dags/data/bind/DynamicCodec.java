@@ -0,0 +1,35 @@
+package me.dags.data.bind;
+
+import me.dags.data.node.NodeReader;
+import me.dags.data.node.NodeTypeAdapters;
+import me.dags.data.node.NodeWriter;
+
+import java.io.IOException;
+
+/**
+ * Binds values declared as Object or as an interface. Each value is written with the codec for its
+ * runtime type, and read as the plain Maps, Lists and values of {@link NodeTypeAdapters#deserialize}.
+ *
+ * @author dags <dags@dags.me>
+ */
+final class DynamicCodec implements Codec<Object> {
+
+    static final DynamicCodec INSTANCE = new DynamicCodec();
+
+    private DynamicCodec() {
+    }
+
+    @Override
+    public Object read(NodeReader reader) throws IOException {
+        return NodeTypeAdapters.deserialize(reader.readSubtree());
+    }
+
+    @Override
+    public void write(NodeWriter writer, Object value) throws IOException {
+        if (value == null || value.getClass() == Object.class) {
+            writer.value(value);
+        } else {
+            Codecs.write(writer, value);
+        }
+    }
+}
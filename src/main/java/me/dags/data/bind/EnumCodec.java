@@ -0,0 +1,49 @@
+package me.dags.data.bind;
+
+import me.dags.data.node.NodeError;
+import me.dags.data.node.NodeEvent;
+import me.dags.data.node.NodeReader;
+import me.dags.data.node.NodeWriter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Binds enum constants to their names
+ *
+ * @author dags <dags@dags.me>
+ */
+final class EnumCodec implements Codec<Enum<?>> {
+
+    private final Class<?> type;
+    private final Map<String, Enum<?>> constants = new HashMap<>();
+
+    EnumCodec(Class<?> type) {
+        this.type = type;
+        for (Object constant : type.getEnumConstants()) {
+            Enum<?> e = (Enum<?>) constant;
+            constants.put(e.name(), e);
+        }
+    }
+
+    @Override
+    public Enum<?> read(NodeReader reader) throws IOException {
+        if (reader.currentEvent() != NodeEvent.VALUE) {
+            throw Codecs.mismatch(reader, "a constant", type);
+        }
+        if (Codecs.isNull(reader)) {
+            return null;
+        }
+        Enum<?> constant = constants.get(reader.stringValue());
+        if (constant == null) {
+            throw new NodeError("Unknown constant " + reader.stringValue() + " for " + type.getName());
+        }
+        return constant;
+    }
+
+    @Override
+    public void write(NodeWriter writer, Enum<?> value) throws IOException {
+        writer.value(value == null ? null : value.name());
+    }
+}
@@ -0,0 +1,110 @@
+package me.dags.data.bind;
+
+import me.dags.data.node.NodeError;
+import me.dags.data.node.NodeEvent;
+import me.dags.data.node.NodeReader;
+import me.dags.data.node.NodeWriter;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Binds Maps to objects. Keys may be Strings, enum constants or whole numbers. Declared interfaces are
+ * read as a LinkedHashMap, TreeMap or ConcurrentHashMap as appropriate, and concrete types through their
+ * no-args constructor.
+ *
+ * @author dags <dags@dags.me>
+ */
+final class MapCodec implements Codec<Map<Object, Object>> {
+
+    private final Class<?> type;
+    private final MethodHandle constructor;
+    private final Function<String, Object> keys;
+    private final Codec<Object> values;
+
+    @SuppressWarnings("unchecked")
+    MapCodec(Class<?> type, Type key, Type value) {
+        this.type = type;
+        this.constructor = ObjectCodec.constructor(implementation(type));
+        this.keys = keys(Codecs.rawType(key));
+        this.values = (Codec<Object>) Codecs.of(value);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<Object, Object> read(NodeReader reader) throws IOException {
+        if (Codecs.isNull(reader)) {
+            return null;
+        }
+        if (reader.currentEvent() != NodeEvent.START_OBJECT) {
+            throw Codecs.mismatch(reader, "an object", type);
+        }
+        Map<Object, Object> map = (Map<Object, Object>) ObjectCodec.construct(constructor, type);
+        while (reader.nextEvent() == NodeEvent.KEY) {
+            Object key = keys.apply(reader.stringValue());
+            reader.nextEvent();
+            map.put(key, values.read(reader));
+        }
+        return map;
+    }
+
+    @Override
+    public void write(NodeWriter writer, Map<Object, Object> value) throws IOException {
+        if (value == null) {
+            writer.value((Object) null);
+            return;
+        }
+        writer.openObject();
+        for (Map.Entry<Object, Object> entry : value.entrySet()) {
+            Object key = entry.getKey();
+            writer.key(key instanceof Enum ? ((Enum<?>) key).name() : String.valueOf(key));
+            values.write(writer, entry.getValue());
+        }
+        writer.closeObject();
+    }
+
+    private static Function<String, Object> keys(Class<?> type) {
+        if (type == String.class || type == Object.class || type == CharSequence.class) {
+            return key -> key;
+        }
+        if (type == Long.class) {
+            return Long::valueOf;
+        }
+        if (type == Integer.class) {
+            return Integer::valueOf;
+        }
+        if (type.isEnum()) {
+            Map<String, Object> constants = new HashMap<>();
+            for (Object constant : type.getEnumConstants()) {
+                constants.put(((Enum<?>) constant).name(), constant);
+            }
+            return key -> {
+                Object constant = constants.get(key);
+                if (constant == null) {
+                    throw new NodeError("Unknown constant " + key + " for " + type.getName());
+                }
+                return constant;
+            };
+        }
+        throw new NodeError("Unsupported map key type " + type.getName());
+    }
+
+    private static Class<?> implementation(Class<?> type) {
+        if (!type.isInterface() && !Modifier.isAbstract(type.getModifiers())) {
+            return type;
+        }
+        if (SortedMap.class.isAssignableFrom(type)) {
+            return TreeMap.class;
+        }
+        if (ConcurrentMap.class.isAssignableFrom(type)) {
+            return ConcurrentHashMap.class;
+        }
+        return LinkedHashMap.class;
+    }
+}
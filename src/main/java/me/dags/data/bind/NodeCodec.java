@@ -0,0 +1,36 @@
+package me.dags.data.bind;
+
+import me.dags.data.node.Node;
+import me.dags.data.node.NodeError;
+import me.dags.data.node.NodeReader;
+import me.dags.data.node.NodeWriter;
+
+import java.io.IOException;
+
+/**
+ * Binds Node fields to the subtree at their position, so that parts of a document can be left unbound
+ *
+ * @author dags <dags@dags.me>
+ */
+final class NodeCodec implements Codec<Node> {
+
+    private final Class<?> type;
+
+    NodeCodec(Class<?> type) {
+        this.type = type;
+    }
+
+    @Override
+    public Node read(NodeReader reader) throws IOException {
+        Node node = reader.readSubtree();
+        if (!node.isPresent() || type.isInstance(node)) {
+            return node;
+        }
+        throw new NodeError("Expected " + type.getSimpleName() + " but found " + node);
+    }
+
+    @Override
+    public void write(NodeWriter writer, Node value) throws IOException {
+        writer.value(value);
+    }
+}
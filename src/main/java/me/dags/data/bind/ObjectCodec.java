@@ -0,0 +1,293 @@
+package me.dags.data.bind;
+
+import me.dags.data.node.NodeError;
+import me.dags.data.node.NodeEvent;
+import me.dags.data.node.NodeReader;
+import me.dags.data.node.NodeWriter;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.*;
+
+/**
+ * Binds a POJO to an object holding one entry per field, named after the field. Static, transient and
+ * synthetic fields are ignored, as are entries that don't match a field. Fields are accessed through
+ * MethodHandles created once, when the codec is, and primitive fields are read and written without boxing.
+ * Reading requires a no-args constructor, which may be private.
+ *
+ * @author dags <dags@dags.me>
+ */
+final class ObjectCodec<T> implements Codec<T> {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private final Class<T> type;
+    private final MethodHandle constructor;
+    private final Property[] properties;
+    private final Map<String, Property> names = new HashMap<>();
+
+    ObjectCodec(Class<T> type) {
+        this.type = type;
+        this.constructor = Modifier.isAbstract(type.getModifiers()) ? null : constructor(type);
+        Map<String, Property> properties = new LinkedHashMap<>();
+        for (Class<?> c : hierarchy(type)) {
+            for (Field field : c.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers) && !field.isSynthetic()) {
+                    properties.put(field.getName(), property(field));
+                }
+            }
+        }
+        this.properties = properties.values().toArray(new Property[properties.size()]);
+        this.names.putAll(properties);
+    }
+
+    @Override
+    public T read(NodeReader reader) throws IOException {
+        if (Codecs.isNull(reader)) {
+            return null;
+        }
+        if (reader.currentEvent() != NodeEvent.START_OBJECT) {
+            throw Codecs.mismatch(reader, "an object", type);
+        }
+        Object instance = construct(constructor, type);
+        try {
+            while (reader.nextEvent() == NodeEvent.KEY) {
+                Property property = names.get(reader.stringValue());
+                if (property == null) {
+                    reader.skipValue();
+                } else {
+                    reader.nextEvent();
+                    try {
+                        property.read(reader, instance);
+                    } catch (NodeError e) {
+                        throw new NodeError("Unable to read " + type.getName() + "." + property.name + ": " + e.getMessage());
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new NodeError("Unable to read " + type.getName() + ": " + t);
+        }
+        return type.cast(instance);
+    }
+
+    @Override
+    public void write(NodeWriter writer, T value) throws IOException {
+        if (value == null) {
+            writer.value((Object) null);
+            return;
+        }
+        writer.openObject();
+        try {
+            for (Property property : properties) {
+                writer.key(property.name);
+                property.write(writer, value);
+            }
+        } catch (IOException | RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new NodeError("Unable to write " + type.getName() + ": " + t);
+        }
+        writer.closeObject();
+    }
+
+    /**
+     * A handle to the type's no-args constructor, returning Object, or null if it doesn't have one
+     */
+    static MethodHandle constructor(Class<?> type) {
+        try {
+            Constructor<?> constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return LOOKUP.unreflectConstructor(constructor).asType(MethodType.methodType(Object.class));
+        } catch (NoSuchMethodException | IllegalAccessException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    static Object construct(MethodHandle constructor, Class<?> type) {
+        if (constructor == null) {
+            throw new NodeError("Unable to create " + type.getName() + ": it has no accessible no-args constructor");
+        }
+        try {
+            return (Object) constructor.invokeExact();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new NodeError("Unable to create " + type.getName() + ": " + t);
+        }
+    }
+
+    private static List<Class<?>> hierarchy(Class<?> type) {
+        LinkedList<Class<?>> hierarchy = new LinkedList<>();
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            hierarchy.addFirst(c);
+        }
+        return hierarchy;
+    }
+
+    private static Property property(Field field) {
+        MethodHandle getter;
+        MethodHandle setter;
+        try {
+            field.setAccessible(true);
+            getter = LOOKUP.unreflectGetter(field);
+            setter = LOOKUP.unreflectSetter(field);
+        } catch (IllegalAccessException | RuntimeException e) {
+            throw new NodeError("Unable to bind field " + field.getDeclaringClass().getName() + "." + field.getName() + ": " + e);
+        }
+        Class<?> type = field.getType();
+        if (type == long.class || type == int.class || type == short.class || type == byte.class) {
+            return new LongProperty(field, getter, setter);
+        }
+        if (type == double.class || type == float.class) {
+            return new DoubleProperty(field, getter, setter);
+        }
+        if (type == boolean.class) {
+            return new BooleanProperty(field, getter, setter);
+        }
+        return new ValueProperty(field, getter, setter);
+    }
+
+    private abstract static class Property {
+
+        final String name;
+        final Field field;
+
+        private Property(Field field) {
+            this.name = field.getName();
+            this.field = field;
+        }
+
+        /**
+         * Reads the field's value, whose first event the reader has just returned, into the instance
+         */
+        abstract void read(NodeReader reader, Object instance) throws Throwable;
+
+        abstract void write(NodeWriter writer, Object instance) throws Throwable;
+
+        /**
+         * Checks that the reader is on a non-null value, as primitive fields can't hold anything else
+         */
+        boolean isValue(NodeReader reader) {
+            if (reader.currentEvent() != NodeEvent.VALUE) {
+                throw Codecs.mismatch(reader, "a value", field.getGenericType());
+            }
+            return reader.nodeValue().isPresent();
+        }
+    }
+
+    private static final class LongProperty extends Property {
+
+        private final MethodHandle getter;
+        private final MethodHandle setter;
+
+        private LongProperty(Field field, MethodHandle getter, MethodHandle setter) {
+            super(field);
+            // widens the field's int, short etc to long when getting, and narrows it back when setting
+            this.getter = getter.asType(MethodType.methodType(long.class, Object.class));
+            this.setter = MethodHandles.explicitCastArguments(setter, MethodType.methodType(void.class, Object.class, long.class));
+        }
+
+        @Override
+        void read(NodeReader reader, Object instance) throws Throwable {
+            if (isValue(reader)) {
+                // range checked here, as the setter narrows to the field's type without checking
+                setter.invokeExact(instance, ScalarCodec.toLong(reader.nodeValue(), field.getType()));
+            }
+        }
+
+        @Override
+        void write(NodeWriter writer, Object instance) throws Throwable {
+            writer.value((long) getter.invokeExact(instance));
+        }
+    }
+
+    private static final class DoubleProperty extends Property {
+
+        private final MethodHandle getter;
+        private final MethodHandle setter;
+
+        private DoubleProperty(Field field, MethodHandle getter, MethodHandle setter) {
+            super(field);
+            this.getter = getter.asType(MethodType.methodType(double.class, Object.class));
+            this.setter = MethodHandles.explicitCastArguments(setter, MethodType.methodType(void.class, Object.class, double.class));
+        }
+
+        @Override
+        void read(NodeReader reader, Object instance) throws Throwable {
+            if (isValue(reader)) {
+                setter.invokeExact(instance, reader.doubleValue());
+            }
+        }
+
+        @Override
+        void write(NodeWriter writer, Object instance) throws Throwable {
+            writer.value((double) getter.invokeExact(instance));
+        }
+    }
+
+    private static final class BooleanProperty extends Property {
+
+        private final MethodHandle getter;
+        private final MethodHandle setter;
+
+        private BooleanProperty(Field field, MethodHandle getter, MethodHandle setter) {
+            super(field);
+            this.getter = getter.asType(MethodType.methodType(boolean.class, Object.class));
+            this.setter = setter.asType(MethodType.methodType(void.class, Object.class, boolean.class));
+        }
+
+        @Override
+        void read(NodeReader reader, Object instance) throws Throwable {
+            if (isValue(reader)) {
+                setter.invokeExact(instance, reader.booleanValue());
+            }
+        }
+
+        @Override
+        void write(NodeWriter writer, Object instance) throws Throwable {
+            writer.value((boolean) getter.invokeExact(instance));
+        }
+    }
+
+    private static final class ValueProperty extends Property {
+
+        private final MethodHandle getter;
+        private final MethodHandle setter;
+        // resolved on first use rather than when the codec is created, so that a type can hold fields of
+        // its own type. Codecs are immutable, so a racing thread at worst resolves the same one again.
+        private Codec<Object> codec;
+
+        private ValueProperty(Field field, MethodHandle getter, MethodHandle setter) {
+            super(field);
+            this.getter = getter.asType(MethodType.methodType(Object.class, Object.class));
+            this.setter = setter.asType(MethodType.methodType(void.class, Object.class, Object.class));
+        }
+
+        @Override
+        void read(NodeReader reader, Object instance) throws Throwable {
+            setter.invokeExact(instance, codec().read(reader));
+        }
+
+        @Override
+        void write(NodeWriter writer, Object instance) throws Throwable {
+            codec().write(writer, (Object) getter.invokeExact(instance));
+        }
+
+        @SuppressWarnings("unchecked")
+        private Codec<Object> codec() {
+            Codec<Object> codec = this.codec;
+            if (codec == null) {
+                this.codec = codec = (Codec<Object>) Codecs.of(field.getGenericType());
+            }
+            return codec;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package me.dags.data.bind;
+
+import me.dags.data.node.Node;
+import me.dags.data.node.NodeError;
+import me.dags.data.node.NodeEvent;
+import me.dags.data.node.NodeLong;
+import me.dags.data.node.NodeReader;
+import me.dags.data.node.NodeWriter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.function.Function;
+
+/**
+ * Binds Strings, primitives and their boxes, BigIntegers and BigDecimals to single values
+ *
+ * @author dags <dags@dags.me>
+ */
+final class ScalarCodec<T> implements Codec<T> {
+
+    private final Class<?> type;
+    private final T absent;
+    private final Function<Node, T> reader;
+    private final ValueWriter<T> writer;
+
+    private ScalarCodec(Class<?> type, T absent, Function<Node, T> reader, ValueWriter<T> writer) {
+        this.type = type;
+        this.absent = absent;
+        this.reader = reader;
+        this.writer = writer;
+    }
+
+    @Override
+    public T read(NodeReader reader) throws IOException {
+        if (reader.currentEvent() != NodeEvent.VALUE) {
+            throw Codecs.mismatch(reader, "a value", type);
+        }
+        Node node = reader.nodeValue();
+        return node.isPresent() ? this.reader.apply(node) : absent;
+    }
+
+    @Override
+    public void write(NodeWriter writer, T value) throws IOException {
+        if (value == null) {
+            writer.value((Object) null);
+        } else {
+            this.writer.write(writer, value);
+        }
+    }
+
+    /**
+     * The codec for the given type, or null if it isn't a scalar type
+     */
+    static ScalarCodec<?> of(Class<?> type) {
+        if (type == String.class) {
+            return new ScalarCodec<>(type, null, Node::asString, NodeWriter::value);
+        }
+        if (type == long.class || type == Long.class) {
+            return new ScalarCodec<>(type, type.isPrimitive() ? 0L : null, node -> toLong(node, type), (w, n) -> w.value(n.longValue()));
+        }
+        if (type == int.class || type == Integer.class) {
+            return new ScalarCodec<>(type, type.isPrimitive() ? 0 : null, node -> (int) toLong(node, type), (w, n) -> w.value(n.longValue()));
+        }
+        if (type == short.class || type == Short.class) {
+            return new ScalarCodec<>(type, type.isPrimitive() ? (short) 0 : null, node -> (short) toLong(node, type), (w, n) -> w.value(n.longValue()));
+        }
+        if (type == byte.class || type == Byte.class) {
+            return new ScalarCodec<>(type, type.isPrimitive() ? (byte) 0 : null, node -> (byte) toLong(node, type), (w, n) -> w.value(n.longValue()));
+        }
+        if (type == double.class || type == Double.class) {
+            return new ScalarCodec<>(type, type.isPrimitive() ? 0D : null, Node::asDouble, (w, n) -> w.value(n.doubleValue()));
+        }
+        if (type == float.class || type == Float.class) {
+            return new ScalarCodec<>(type, type.isPrimitive() ? 0F : null, node -> (float) node.asDouble(), (w, n) -> w.value(n.doubleValue()));
+        }
+        if (type == boolean.class || type == Boolean.class) {
+            return new ScalarCodec<>(type, type.isPrimitive() ? false : null, Node::asBoolean, (w, b) -> w.value(b.booleanValue()));
+        }
+        if (type == char.class || type == Character.class) {
+            return new ScalarCodec<>(type, type.isPrimitive() ? (char) 0 : null, ScalarCodec::toChar, (w, c) -> w.value(String.valueOf(c)));
+        }
+        if (type == BigInteger.class) {
+            return new ScalarCodec<>(type, null, ScalarCodec::toBigInteger, (w, n) -> w.value((Object) n));
+        }
+        if (type == BigDecimal.class) {
+            return new ScalarCodec<>(type, null, ScalarCodec::toBigDecimal, (w, n) -> w.value((Object) n));
+        }
+        return null;
+    }
+
+    /**
+     * The node's value as a whole number in the range of the given integral type, primitive or boxed.
+     * Fractions are truncated, as by {@link Node#asLong()}, but a value outside the range is an error
+     * rather than being wrapped or clamped into it.
+     */
+    static long toLong(Node node, Class<?> type) {
+        long min = minValue(type);
+        long max = maxValue(type);
+        if (node instanceof NodeLong) {
+            long value = node.asLong();
+            if (value < min || value > max) {
+                throw outOfRange(value, type);
+            }
+            return value;
+        }
+        Number number = node.asNumber();
+        boolean inRange;
+        if (number instanceof BigInteger || number instanceof BigDecimal) {
+            BigInteger value = number instanceof BigInteger ? (BigInteger) number : ((BigDecimal) number).toBigInteger();
+            inRange = value.compareTo(BigInteger.valueOf(min)) >= 0 && value.compareTo(BigInteger.valueOf(max)) <= 0;
+        } else if (number instanceof Double || number instanceof Float) {
+            double value = number.doubleValue();
+            double truncated = value < 0 ? Math.ceil(value) : Math.floor(value);
+            // NaN, from a non-numeric value, keeps reading as 0 like asLong(); (double) max + 1 is exact
+            inRange = Double.isNaN(value) || (truncated >= (double) min && truncated < (double) max + 1);
+        } else {
+            inRange = number.longValue() >= min && number.longValue() <= max;
+        }
+        if (!inRange) {
+            throw outOfRange(number, type);
+        }
+        return number.longValue();
+    }
+
+    static long minValue(Class<?> type) {
+        if (type == int.class || type == Integer.class) {
+            return Integer.MIN_VALUE;
+        }
+        if (type == short.class || type == Short.class) {
+            return Short.MIN_VALUE;
+        }
+        if (type == byte.class || type == Byte.class) {
+            return Byte.MIN_VALUE;
+        }
+        return Long.MIN_VALUE;
+    }
+
+    static long maxValue(Class<?> type) {
+        if (type == int.class || type == Integer.class) {
+            return Integer.MAX_VALUE;
+        }
+        if (type == short.class || type == Short.class) {
+            return Short.MAX_VALUE;
+        }
+        if (type == byte.class || type == Byte.class) {
+            return Byte.MAX_VALUE;
+        }
+        return Long.MAX_VALUE;
+    }
+
+    private static NodeError outOfRange(Object value, Class<?> type) {
+        return new NodeError("Value " + value + " is out of range for " + type.getName());
+    }
+
+    private static char toChar(Node node) {
+        String string = node.asString();
+        return string.isEmpty() ? 0 : string.charAt(0);
+    }
+
+    private static BigInteger toBigInteger(Node node) {
+        Number number = node.asNumber();
+        if (number instanceof BigInteger) {
+            return (BigInteger) number;
+        }
+        if (number instanceof BigDecimal) {
+            return ((BigDecimal) number).toBigInteger();
+        }
+        if (number instanceof Double || number instanceof Float) {
+            return BigDecimal.valueOf(number.doubleValue()).toBigInteger();
+        }
+        return BigInteger.valueOf(number.longValue());
+    }
+
+    private static BigDecimal toBigDecimal(Node node) {
+        Number number = node.asNumber();
+        if (number instanceof BigDecimal) {
+            return (BigDecimal) number;
+        }
+        if (number instanceof BigInteger) {
+            return new BigDecimal((BigInteger) number);
+        }
+        if (number instanceof Double || number instanceof Float) {
+            return BigDecimal.valueOf(number.doubleValue());
+        }
+        return BigDecimal.valueOf(number.longValue());
+    }
+
+    private interface ValueWriter<T> {
+
+        void write(NodeWriter writer, T value) throws IOException;
+    }
+}
@@ -1,6 +1,5 @@
 package me.dags.data.hocon;
 
-import me.dags.data.StringUtils;
 import me.dags.data.node.Node;
 import me.dags.data.node.NodeObject;
 import me.dags.data.node.NodeReader;
@@ -26,7 +25,11 @@ public class HoconReader extends NodeReader {
         if (root) {
             return readRoot();
         }
-        char c = nextToken();
+        return readValue(nextToken());
+    }
+
+    @Override
+    protected Node readValue(char c) throws IOException {
         switch (c) {
             case '{':
                 return readObject();
@@ -63,30 +66,40 @@ public class HoconReader extends NodeReader {
         return Node.NULL;
     }
 
+    @Override
+    protected boolean beginRoot(char first) throws IOException {
+        root = false;
+        return first != '{' && first != '[';
+    }
+
+    @Override
+    protected boolean isSeparator(char c) {
+        return c == ',' || c == ':' || c == '=';
+    }
+
     private Node readRoot() throws IOException {
         root = false;
         char c = peekToken();
         if (c == '{' || c == '[') {
             return readNode();
         }
-        NodeObject object = new NodeObject();
+        NodeObject object = newObject();
         while (peekToken() != (char) -1) {
             Node key = readNode();
             Node value = readNode();
-            object.putValue(key,  value);
+            putEntry(object, key, value);
         }
         return object;
     }
 
     private Node readPrimitive() throws IOException {
-        String input = readRaw();
-        if (StringUtils.isNumber(input)) {
-            Double d = Double.valueOf(input);
-            if (input.contains(".") || input.contains("e") || input.contains("E")) {
-                return newNode(d);
-            }
-            return newNode(d.longValue());
-        } else if (input.equalsIgnoreCase("true")) {
+        readRaw();
+        Node number = parseNumber();
+        if (number != null) {
+            return number;
+        }
+        String input = bufferToString();
+        if (input.equalsIgnoreCase("true")) {
             return Node.TRUE;
         } else if (input.equalsIgnoreCase("false")) {
             return Node.FALSE;
@@ -97,17 +110,18 @@ public class HoconReader extends NodeReader {
         }
     }
 
-    private String readRaw() throws IOException {
+    private void readRaw() throws IOException {
         resetBuffer();
         char c = lastChar();
-        while (!breakRaw(c)) {
+        char previous = c;
+        while (!breakRaw(c) || (c == '+' && (previous == 'e' || previous == 'E'))) {
             appendToBuffer(c);
+            previous = c;
             c = readChar();
         }
         if (c == ']' || c == '}') {
             previous();
         }
-        return bufferToString();
     }
 
     private boolean breakRaw(char c) {
@@ -2,7 +2,6 @@ package me.dags.data.hocon;
 
 import me.dags.data.StringUtils;
 import me.dags.data.node.Node;
-import me.dags.data.node.NodeArray;
 import me.dags.data.node.NodeWriter;
 
 import java.io.IOException;
@@ -15,7 +14,21 @@ import java.util.Map;
  */
 public class HoconWriter extends NodeWriter {
 
-    private final StringUtils stringUtils = new StringUtils();
+    private static final boolean[] UNQUOTED = new boolean[128];
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) {
+            UNQUOTED[c] = true;
+            UNQUOTED[Character.toUpperCase(c)] = true;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            UNQUOTED[c] = true;
+        }
+        UNQUOTED['.'] = true;
+        UNQUOTED['_'] = true;
+        UNQUOTED['-'] = true;
+    }
+
     private final boolean compact;
     private final String indentSpaces;
     private final String lineBreak;
@@ -49,12 +62,36 @@ public class HoconWriter extends NodeWriter {
 
     @Override
     protected void writeString(String string) throws IOException {
-        append(stringUtils.safeString(string));
+        if (unquoted(string)) {
+            append(string);
+        } else {
+            append('"');
+            appendEscaped(string, false);
+            append('"');
+        }
     }
 
     @Override
-    protected void writePrimitiveArray(NodeArray node) throws IOException {
-        super.writeComplexArray(node);
+    protected boolean bracesAroundRoot() {
+        return false;
+    }
+
+    @Override
+    protected boolean inlinePrimitiveArrays() {
+        return false;
+    }
+
+    private static boolean unquoted(String string) {
+        if (string.isEmpty() || StringUtils.isNumber(string)) {
+            return false;
+        }
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            if (c >= 128 || !UNQUOTED[c]) {
+                return false;
+            }
+        }
+        return !string.equalsIgnoreCase("true") && !string.equalsIgnoreCase("false") && !string.equalsIgnoreCase("null");
     }
 
     @Override
@@ -0,0 +1,338 @@
+package me.dags.data.json;
+
+import me.dags.data.StringPool;
+import me.dags.data.node.Node;
+import me.dags.data.node.NodeArray;
+import me.dags.data.node.NodeError;
+import me.dags.data.node.NodeObject;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Reads json directly from UTF-8 encoded bytes held in memory.
+ * Json structure is pure ASCII so bytes are only decoded inside string values, and only when
+ * those strings contain non-ASCII bytes.
+ *
+ * @author dags <dags@dags.me>
+ */
+public class JsonByteReader extends JsonReader {
+
+    private final ByteBuffer bytes;
+    private final int start;
+    private final int limit;
+    private final boolean lazy;
+    private int index;
+    private char last = EOF;
+
+    public JsonByteReader(byte[] bytes) {
+        this(ByteBuffer.wrap(bytes));
+    }
+
+    public JsonByteReader(ByteBuffer bytes) {
+        this(bytes, false);
+    }
+
+    /**
+     * In lazy mode readNode() makes a single structural pass over the input and returns objects and arrays
+     * whose contents are only parsed when first accessed. The buffer is retained until every object and array
+     * has been loaded, so it must not be modified afterwards.
+     */
+    public JsonByteReader(ByteBuffer bytes, boolean lazy) {
+        this.bytes = bytes;
+        this.start = bytes.position();
+        this.limit = bytes.limit();
+        this.lazy = lazy;
+        this.index = start;
+    }
+
+    @Override
+    public Node readNode() throws IOException {
+        if (!lazy) {
+            return super.readNode();
+        }
+        StructuralIndex structure = new StructuralIndex(this);
+        char c = nextToken();
+        if (c == '{') {
+            return lazyObject(structure, 0);
+        }
+        if (c == '[') {
+            return lazyArray(structure, 0);
+        }
+        return readValue(c);
+    }
+
+    @Override
+    protected Node readString() throws IOException {
+        resetBuffer();
+        int from = index;
+        while (index < limit) {
+            byte b = bytes.get(index);
+            if (b == '"') {
+                appendAscii(from, index);
+                index++;
+                last = '"';
+                return newNode(bufferToString());
+            }
+            if (b == '\\' || b < 0) {
+                break;
+            }
+            index++;
+        }
+        appendAscii(from, index);
+        return readEncodedString();
+    }
+
+    private Node readEncodedString() throws IOException {
+        while (index < limit) {
+            int b = bytes.get(index++);
+            if (b == '"') {
+                last = '"';
+                return newNode(bufferToString());
+            }
+            if (b == '\\') {
+                appendEscape(readChar());
+            } else if (b >= 0) {
+                appendToBuffer((char) b);
+            } else {
+                appendCodePoint(b);
+            }
+        }
+        last = EOF;
+        return newNode(bufferToString());
+    }
+
+    private void appendAscii(int from, int to) {
+        for (int i = from; i < to; i++) {
+            appendToBuffer((char) bytes.get(i));
+        }
+    }
+
+    private void appendCodePoint(int lead) {
+        int codePoint;
+        int extra;
+        if ((lead & 0xE0) == 0xC0) {
+            codePoint = lead & 0x1F;
+            extra = 1;
+        } else if ((lead & 0xF0) == 0xE0) {
+            codePoint = lead & 0x0F;
+            extra = 2;
+        } else if ((lead & 0xF8) == 0xF0) {
+            codePoint = lead & 0x07;
+            extra = 3;
+        } else {
+            appendToBuffer('\uFFFD');
+            return;
+        }
+        while (extra-- > 0) {
+            if (index >= limit || (bytes.get(index) & 0xC0) != 0x80) {
+                appendToBuffer('\uFFFD');
+                return;
+            }
+            codePoint = (codePoint << 6) | (bytes.get(index++) & 0x3F);
+        }
+        if (Character.isBmpCodePoint(codePoint)) {
+            appendToBuffer((char) codePoint);
+        } else {
+            appendToBuffer(Character.highSurrogate(codePoint));
+            appendToBuffer(Character.lowSurrogate(codePoint));
+        }
+    }
+
+    /**
+     * Reads the given number of comma-separated values into the array, for input holding a run of array
+     * elements without the surrounding brackets
+     */
+    void readElements(Node[] into, int offset, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            char c = nextStructuralToken();
+            if (c == EOF) {
+                throw new NodeError("Expected " + count + " elements but found " + i);
+            }
+            into[offset + i] = readValue(c);
+        }
+        if (nextStructuralToken() != EOF) {
+            throw new NodeError("Expected " + count + " elements but found more at position " + (position() - 1));
+        }
+    }
+
+    private char nextStructuralToken() throws IOException {
+        char c = nextToken();
+        while (c == ',' || c == ':') {
+            c = nextToken();
+        }
+        return c;
+    }
+
+    @Override
+    protected char readChar() throws IOException {
+        if (index < limit) {
+            return last = (char) (bytes.get(index++) & 0xFF);
+        }
+        return last = EOF;
+    }
+
+    @Override
+    protected char nextToken() throws IOException {
+        while (index < limit) {
+            char c = (char) (bytes.get(index++) & 0xFF);
+            if (!skipChar(c)) {
+                return last = c;
+            }
+        }
+        return last = EOF;
+    }
+
+    @Override
+    protected char peekChar(int ahead) throws IOException {
+        return index + ahead < limit ? (char) (bytes.get(index + ahead) & 0xFF) : EOF;
+    }
+
+    @Override
+    protected char lastChar() {
+        return last;
+    }
+
+    @Override
+    protected void previous() throws IOException {
+        if (last != EOF && index > start) {
+            index--;
+        }
+    }
+
+    @Override
+    protected void skip(int places) throws IOException {
+        if (index + places <= limit) {
+            index += places;
+            last = (char) (bytes.get(index - 1) & 0xFF);
+        } else {
+            index = limit;
+            last = EOF;
+        }
+    }
+
+    @Override
+    protected long position() {
+        return index - start;
+    }
+
+    /**
+     * Records the start, end and subtree size of every object and array in the input, in document order,
+     * so that any of them can be parsed in isolation and their nested objects/arrays skipped in constant time
+     */
+    private static class StructuralIndex extends Loader {
+
+        private final ByteBuffer bytes;
+        private final int start;
+        private final int limit;
+        private final StringPool stringPool;
+        private int[] starts = new int[64];
+        private int[] ends = new int[64];
+        private int[] next = new int[64];
+
+        private StructuralIndex(JsonByteReader reader) {
+            this.bytes = reader.bytes;
+            this.start = reader.start;
+            this.limit = reader.limit;
+            this.stringPool = reader.stringPool();
+            index(reader.index);
+        }
+
+        private void index(int from) {
+            int[] open = new int[32];
+            int depth = 0;
+            int count = 0;
+            for (int i = from; i < limit; i++) {
+                byte b = bytes.get(i);
+                if (b == '"') {
+                    for (i++; i < limit; i++) {
+                        byte s = bytes.get(i);
+                        if (s == '\\') {
+                            i++;
+                        } else if (s == '"') {
+                            break;
+                        }
+                    }
+                } else if (b == '{' || b == '[') {
+                    if (count >= starts.length) {
+                        starts = Arrays.copyOf(starts, count * 2);
+                        ends = Arrays.copyOf(ends, count * 2);
+                        next = Arrays.copyOf(next, count * 2);
+                    }
+                    if (depth >= open.length) {
+                        open = Arrays.copyOf(open, depth * 2);
+                    }
+                    starts[count] = i + 1;
+                    ends[count] = limit;
+                    next[count] = count + 1;
+                    open[depth++] = count++;
+                } else if ((b == '}' || b == ']') && depth > 0) {
+                    int token = open[--depth];
+                    ends[token] = i + 1;
+                    next[token] = count;
+                }
+            }
+            for (int i = 0; i < depth; i++) {
+                next[open[i]] = count;
+            }
+        }
+
+        @Override
+        protected void load(NodeObject object, int token) {
+            JsonByteReader reader = cursor(token);
+            int child = token + 1;
+            try {
+                while (true) {
+                    char c = reader.nextStructuralToken();
+                    if (c == '}' || c == EOF) {
+                        return;
+                    }
+                    Node key = reader.readValue(c);
+                    c = reader.nextStructuralToken();
+                    if (c == '{' || c == '[') {
+                        putEntry(object, key, c == '{' ? lazyObject(this, child) : lazyArray(this, child));
+                        reader.index = ends[child];
+                        child = next[child];
+                    } else {
+                        putEntry(object, key, reader.readValue(c));
+                    }
+                }
+            } catch (IOException e) {
+                throw new NodeError("Unable to load object at position " + reader.position() + ": " + e.getMessage());
+            }
+        }
+
+        @Override
+        protected void load(NodeArray array, int token) {
+            JsonByteReader reader = cursor(token);
+            int child = token + 1;
+            try {
+                while (true) {
+                    char c = reader.nextStructuralToken();
+                    if (c == ']' || c == EOF) {
+                        return;
+                    }
+                    if (c == '{' || c == '[') {
+                        array.add(c == '{' ? lazyObject(this, child) : lazyArray(this, child));
+                        reader.index = ends[child];
+                        child = next[child];
+                    } else {
+                        array.add(reader.readValue(c));
+                    }
+                }
+            } catch (IOException e) {
+                throw new NodeError("Unable to load array at position " + reader.position() + ": " + e.getMessage());
+            }
+        }
+
+        private JsonByteReader cursor(int token) {
+            ByteBuffer view = bytes.duplicate();
+            view.position(start);
+            JsonByteReader reader = new JsonByteReader(view);
+            reader.setStringPool(stringPool);
+            reader.index = starts[token];
+            return reader;
+        }
+    }
+}
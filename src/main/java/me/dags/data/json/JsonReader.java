@@ -12,9 +12,17 @@ public class JsonReader extends NodeReader  {
         super(in);
     }
 
+    protected JsonReader() {
+        super();
+    }
+
     @Override
     public Node readNode() throws IOException {
-        char c = nextToken();
+        return readValue(nextToken());
+    }
+
+    @Override
+    protected Node readValue(char c) throws IOException {
         switch (c) {
             case '[':
                 return readArray();
@@ -1,6 +1,5 @@
 package me.dags.data.json;
 
-import me.dags.data.StringUtils;
 import me.dags.data.node.Node;
 import me.dags.data.node.NodeWriter;
 
@@ -12,21 +11,32 @@ public class JsonWriter extends NodeWriter {
     private final String indentSpaces;
     private final String lineBreak;
     private final String padding;
+    private final boolean escapeUnicode;
 
     public JsonWriter(OutputStream outputStream) {
         this(outputStream, false);
     }
 
     public JsonWriter(OutputStream outputStream, boolean compact) {
+        this(outputStream, compact, true);
+    }
+
+    /**
+     * @param escapeUnicode whether non-ASCII chars are written as unicode escapes rather than as UTF-8
+     */
+    public JsonWriter(OutputStream outputStream, boolean compact, boolean escapeUnicode) {
         super(outputStream);
         indentSpaces = compact ? "" : "    ";
         lineBreak = compact ? "" : "\n";
         padding = compact ? "" : " ";
+        this.escapeUnicode = escapeUnicode;
     }
 
     @Override
     public void writeString(String string) throws IOException {
-        append("\"" + StringUtils.escapeString(string) + "\"");
+        append('"');
+        appendEscaped(string, escapeUnicode);
+        append('"');
     }
 
     @Override
@@ -0,0 +1,368 @@
+package me.dags.data.json;
+
+import me.dags.data.StringPool;
+import me.dags.data.node.Node;
+import me.dags.data.node.NodeArray;
+import me.dags.data.node.NodeError;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Reads json whose root is an array by parsing runs of its elements on several threads.
+ * A single sequential pass first finds the top-level element boundaries, tracking only string, escape and
+ * nesting state, and cuts the array into chunks of roughly equal size at those boundaries. Each chunk is then
+ * parsed on its own by a {@link JsonByteReader}, so the elements come out exactly as a sequential read would
+ * give them.
+ *
+ * The array must be well-formed at the top level: one value per element, separated by commas, and only
+ * whitespace after the closing bracket. {@link JsonByteReader#readNode()} is more lenient, treating commas as
+ * optional and ignoring anything after the first value, but the element boundaries can't be found reliably
+ * without them.
+ *
+ * Files are scanned through successive mappings and each chunk is mapped separately, so only a single chunk
+ * (rather than the whole file) has to fit within the 2GB limit of one mapping.
+ *
+ * @author dags <dags@dags.me>
+ */
+public final class ParallelArrayReader {
+
+    // files are scanned through mappings of at most this many bytes at a time
+    private static final long SCAN_WINDOW = 1 << 30;
+    private static final long MIN_CHUNK = 64 * 1024;
+    private static final long MAX_CHUNK = 64 * 1024 * 1024;
+    // chunks per thread, so that threads given quicker chunks can take more of them
+    private static final int CHUNKS_PER_THREAD = 8;
+
+    private final ByteBuffer[] chunks;
+    private final int[] counts;
+    private final int[] offsets;
+    private final int count;
+    private StringPool stringPool = null;
+
+    private ParallelArrayReader(ByteBuffer[] chunks, int[] counts) {
+        this.chunks = chunks;
+        this.counts = counts;
+        this.offsets = new int[counts.length];
+        long total = 0;
+        for (int i = 0; i < counts.length; i++) {
+            offsets[i] = (int) total;
+            total += counts[i];
+            if (total > Integer.MAX_VALUE - 8) {
+                throw new NodeError("Array has too many elements to be held in one NodeArray");
+            }
+        }
+        this.count = (int) total;
+    }
+
+    /**
+     * Scans the buffer, from its position to its limit. Returns null if its root value isn't an array.
+     */
+    public static ParallelArrayReader of(ByteBuffer bytes, int parallelism) {
+        ByteBuffer view = bytes.slice();
+        Scan scan = new Scan(view.remaining(), parallelism);
+        scan.scan(view, 0);
+        if (!scan.isArray()) {
+            return null;
+        }
+        ByteBuffer[] chunks = new ByteBuffer[scan.chunks];
+        for (int i = 0; i < chunks.length; i++) {
+            ByteBuffer chunk = view.duplicate();
+            chunk.limit((int) scan.ends[i]).position((int) scan.starts[i]);
+            chunks[i] = chunk.slice();
+        }
+        return new ParallelArrayReader(chunks, Arrays.copyOf(scan.counts, scan.chunks));
+    }
+
+    /**
+     * Scans the file through read-only mappings. Returns null if its root value isn't an array.
+     */
+    public static ParallelArrayReader of(Path path, int parallelism) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            Scan scan = new Scan(size, parallelism);
+            boolean scanning = true;
+            for (long from = 0; scanning && from < size; from += SCAN_WINDOW) {
+                ByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, from, Math.min(SCAN_WINDOW, size - from));
+                scanning = scan.scan(window, from);
+            }
+            if (!scan.isArray()) {
+                return null;
+            }
+            ByteBuffer[] chunks = new ByteBuffer[scan.chunks];
+            for (int i = 0; i < chunks.length; i++) {
+                long length = scan.ends[i] - scan.starts[i];
+                if (length > Integer.MAX_VALUE) {
+                    throw new NodeError("Array element at position " + scan.starts[i] + " is too large to map");
+                }
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, scan.starts[i], length);
+            }
+            return new ParallelArrayReader(chunks, Arrays.copyOf(scan.counts, scan.chunks));
+        }
+    }
+
+    public void setStringPool(StringPool stringPool) {
+        this.stringPool = stringPool;
+    }
+
+    /**
+     * The number of elements in the array
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * The number of runs of elements that are parsed separately
+     */
+    public int chunks() {
+        return chunks.length;
+    }
+
+    /**
+     * Parses every chunk on the pool and returns the elements in one array, in document order
+     */
+    public NodeArray read(ForkJoinPool pool) {
+        Node[] elements = new Node[count];
+        pool.invoke(new ParseTask(this, elements, 0, chunks.length));
+        NodeArray array = new NodeArray();
+        for (Node element : elements) {
+            array.add(element);
+        }
+        return array;
+    }
+
+    /**
+     * The elements as a parallel stream, in document order. Each chunk is parsed when the stream reaches it,
+     * so only the chunks currently being processed are held in memory.
+     */
+    public Stream<Node> stream() {
+        return IntStream.range(0, chunks.length).parallel().mapToObj(this::parse).flatMap(Arrays::stream);
+    }
+
+    private Node[] parse(int chunk) {
+        Node[] elements = new Node[counts[chunk]];
+        parse(chunk, elements, 0);
+        return elements;
+    }
+
+    private void parse(int chunk, Node[] into, int offset) {
+        JsonByteReader reader = new JsonByteReader(chunks[chunk].duplicate());
+        if (stringPool != null) {
+            reader.setStringPool(stringPool);
+        }
+        try {
+            reader.readElements(into, offset, counts[chunk]);
+        } catch (IOException e) {
+            throw new NodeError("Unable to read array chunk " + chunk + ": " + e.getMessage());
+        }
+    }
+
+    private static class ParseTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final ParallelArrayReader reader;
+        private final Node[] into;
+        private final int from;
+        private final int to;
+
+        private ParseTask(ParallelArrayReader reader, Node[] into, int from, int to) {
+            this.reader = reader;
+            this.into = into;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                if (to > from) {
+                    reader.parse(from, into, reader.offsets[from]);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ParseTask(reader, into, from, middle), new ParseTask(reader, into, middle, to));
+        }
+    }
+
+    /**
+     * Finds the top-level element boundaries, cutting a chunk at the first boundary past the target size.
+     * State is kept between calls so that input can be scanned a window at a time.
+     */
+    private static class Scan {
+
+        private static final int BEFORE = 0;
+        private static final int INSIDE = 1;
+        private static final int DONE = 2;
+        private static final int NOT_ARRAY = 3;
+
+        // where the scan is within the current top-level element
+        private static final int FIRST = 0;
+        private static final int NEXT = 1;
+        private static final int OPEN = 2;
+        private static final int SCALAR = 3;
+        private static final int COMPLETE = 4;
+
+        private final long size;
+        private final long target;
+        // windows are copied onto the heap a block at a time, which scans faster than reading them a byte at a time
+        private final byte[] block = new byte[64 * 1024];
+        private int state = BEFORE;
+        private int depth = 0;
+        private boolean inString = false;
+        private boolean escaped = false;
+        private int element = FIRST;
+        private long chunkStart = -1;
+        private int chunkCount = 0;
+
+        private long[] starts = new long[16];
+        private long[] ends = new long[16];
+        private int[] counts = new int[16];
+        private int chunks = 0;
+
+        private Scan(long size, int parallelism) {
+            this.size = size;
+            long target = size / Math.max(1, parallelism * CHUNKS_PER_THREAD);
+            this.target = Math.max(MIN_CHUNK, Math.min(MAX_CHUNK, target));
+        }
+
+        private boolean isArray() {
+            return state == DONE;
+        }
+
+        /**
+         * Scans the window, whose first byte is at the given position in the input. Returns false once
+         * the input is known not to be an array, as the rest of it needn't be scanned.
+         */
+        private boolean scan(ByteBuffer window, long base) {
+            ByteBuffer view = window.duplicate();
+            while (view.hasRemaining()) {
+                long position = base + view.position();
+                int length = Math.min(block.length, view.remaining());
+                view.get(block, 0, length);
+                if (!scan(block, length, position)) {
+                    return false;
+                }
+            }
+            if (state == INSIDE && base + window.limit() >= size) {
+                throw new NodeError("Unterminated json array");
+            }
+            return true;
+        }
+
+        private boolean scan(byte[] bytes, int length, long base) {
+            for (int i = 0; i < length; i++) {
+                byte b = bytes[i];
+                if (state == DONE) {
+                    if (!isWhitespace(b)) {
+                        throw new NodeError("Unexpected content after the array at position " + (base + i));
+                    }
+                    continue;
+                }
+                if (inString) {
+                    if (escaped) {
+                        escaped = false;
+                    } else if (b == '\\') {
+                        escaped = true;
+                    } else if (b == '"') {
+                        inString = false;
+                        if (depth == 1) {
+                            element = COMPLETE;
+                        }
+                    }
+                    continue;
+                }
+                if (state == BEFORE) {
+                    if (isWhitespace(b)) {
+                        continue;
+                    }
+                    if (b != '[') {
+                        state = NOT_ARRAY;
+                        return false;
+                    }
+                    state = INSIDE;
+                    depth = 1;
+                    continue;
+                }
+                if (depth == 1) {
+                    if (b == ',' || b == ']') {
+                        if (element == SCALAR || element == COMPLETE) {
+                            endElement(base + i);
+                        } else if (b == ',' || element == NEXT) {
+                            throw new NodeError("Missing array element at position " + (base + i));
+                        }
+                        if (b == ']') {
+                            if (chunkStart >= 0) {
+                                endChunk(base + i);
+                            }
+                            state = DONE;
+                        }
+                        continue;
+                    }
+                    if (isWhitespace(b)) {
+                        if (element == SCALAR) {
+                            element = COMPLETE;
+                        }
+                        continue;
+                    }
+                    boolean opens = b == '"' || b == '{' || b == '[';
+                    if (element == COMPLETE || (element == SCALAR && opens) || b == '}') {
+                        throw new NodeError("Expected ',' or ']' at position " + (base + i));
+                    }
+                    if (element != SCALAR) {
+                        element = opens ? OPEN : SCALAR;
+                        if (chunkStart < 0) {
+                            chunkStart = base + i;
+                        }
+                    }
+                }
+                if (b == '"') {
+                    inString = true;
+                } else if (b == '{' || b == '[') {
+                    depth++;
+                } else if (b == '}' || b == ']') {
+                    if (--depth == 1) {
+                        element = COMPLETE;
+                    }
+                }
+            }
+            return true;
+        }
+
+        private void endElement(long position) {
+            element = NEXT;
+            chunkCount++;
+            if (position - chunkStart >= target) {
+                endChunk(position);
+            }
+        }
+
+        private void endChunk(long end) {
+            if (chunks == starts.length) {
+                starts = Arrays.copyOf(starts, chunks * 2);
+                ends = Arrays.copyOf(ends, chunks * 2);
+                counts = Arrays.copyOf(counts, chunks * 2);
+            }
+            starts[chunks] = chunkStart;
+            ends[chunks] = end;
+            counts[chunks] = chunkCount;
+            chunks++;
+            chunkStart = -1;
+            chunkCount = 0;
+        }
+
+        private static boolean isWhitespace(byte b) {
+            return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+        }
+    }
+}
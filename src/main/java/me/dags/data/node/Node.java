@@ -5,8 +5,8 @@ import me.dags.data.StringUtils;
 public class Node {
 
     public static final Node NULL = new Node(new Object());
-    public static final Node TRUE = new Node(true);
-    public static final Node FALSE = new Node(false);
+    public static final Node TRUE = new NodeBoolean(true);
+    public static final Node FALSE = new NodeBoolean(false);
 
     private final Object value;
 
@@ -19,11 +19,12 @@ public class Node {
     }
 
     public Object asObject() {
-        return isPresent() ? value : null;
+        return isPresent() ? get() : null;
     }
 
     public Boolean asBoolean() {
         if (isPresent()) {
+            Object value = get();
             if (value instanceof Boolean) {
                 return (Boolean) value;
             }
@@ -36,6 +37,7 @@ public class Node {
 
     public Number asNumber() {
         if (isPresent()) {
+            Object value = get();
             if (value instanceof Number) {
                 return (Number) value;
             }
@@ -46,12 +48,31 @@ public class Node {
         return Double.NaN;
     }
 
+    /**
+     * The value as a long, without allocating for nodes read as integers. Non-numeric values give 0.
+     */
+    public long asLong() {
+        return asNumber().longValue();
+    }
+
+    public int asInt() {
+        return (int) asLong();
+    }
+
+    /**
+     * The value as a double, without allocating for nodes read as numbers. Non-numeric values give NaN.
+     */
+    public double asDouble() {
+        return asNumber().doubleValue();
+    }
+
     public String asString() {
         if (isPresent()) {
+            Object value = get();
             if (value instanceof String) {
-                return StringUtils.unEscapeString(value.toString());
+                return (String) value;
             }
-            return value.toString();
+            return toString();
         }
         return "null";
     }
@@ -68,6 +89,22 @@ public class Node {
         return this != NULL;
     }
 
+    /**
+     * Makes this node and everything below it immutable, loading any lazily read content and trimming spare
+     * storage, so that the tree can be shared between threads without locking once safely published (for
+     * example through a volatile field). Returns this node.
+     */
+    public Node freeze() {
+        return this;
+    }
+
+    /**
+     * Whether this node can no longer be modified. Always true for primitive nodes.
+     */
+    public boolean isFrozen() {
+        return true;
+    }
+
     public boolean isPrimitive() {
         return !isNodeObject() && !isNodeArray();
     }
@@ -81,7 +118,14 @@ public class Node {
     }
 
     public boolean equalTo(Object other) {
-        return value == other;
+        return get() == other;
+    }
+
+    /**
+     * Whether this Node holds the given raw value (a String for a string Node, a Long for a whole number, etc)
+     */
+    boolean matches(Object raw) {
+        return get().equals(raw);
     }
 
     @Override
@@ -95,12 +139,12 @@ public class Node {
 
     @Override
     public int hashCode() {
-        return this == NULL ? super.hashCode() : get().hashCode();
+        return get().hashCode();
     }
 
     @Override
     public String toString() {
-        return isPresent() ? value.toString() : "null";
+        return isPresent() ? get().toString() : "null";
     }
 
     public static Node of(Object object) {
@@ -1,26 +1,63 @@
 package me.dags.data.node;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.util.*;
 import java.util.function.Function;
+import java.util.stream.DoubleStream;
+import java.util.stream.LongStream;
 import java.util.stream.Stream;
 
 public class NodeArray extends Node {
 
     static final NodeArray EMPTY = new NodeArray(null);
 
+    private NodeReader.Loader loader = null;
+    private int token = 0;
+
+    // while every element added is a NodeLong (or every one a NodeDouble) they are stored unboxed here,
+    // until an element of any other type is added
+    private long[] longs = null;
+    private double[] doubles = null;
+    private int packed = 0;
+
+    private boolean frozen = false;
+    private int hash = 0;
+
     public NodeArray() {
         super(new ArrayList<>());
     }
 
+    NodeArray(NodeReader.Loader loader, int token) {
+        this();
+        this.loader = loader;
+        this.token = token;
+    }
+
     private NodeArray(Object nop) {
         super(Collections.emptyList());
+        this.frozen = true;
     }
 
-    @SuppressWarnings("unchecked")
     private List<Node> list() {
-        return (List<Node>) get();
+        load();
+        return longs != null || doubles != null ? new PackedList() : nodes();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Node> nodes() {
+        return (List<Node>) super.get();
+    }
+
+    private void load() {
+        if (loader != null) {
+            NodeReader.Loader pending = loader;
+            loader = null;
+            pending.load(this, token);
+        }
+    }
+
+    @Override
+    Object get() {
+        return list();
     }
 
     public List<Object> toList() {
@@ -43,11 +80,12 @@ public class NodeArray extends Node {
     }
 
     public int count() {
-        return list().size();
+        int size = packedSize();
+        return size >= 0 ? size : nodes().size();
     }
 
     public List<Node> values() {
-        return list();
+        return frozen ? Collections.unmodifiableList(list()) : list();
     }
 
     public boolean empty() {
@@ -56,7 +94,10 @@ public class NodeArray extends Node {
 
     public Node get(int index) {
         if (isPresent() && index >= 0 && index < count()) {
-            Node node = list().get(index);
+            if (packedSize() >= 0) {
+                return packed(index);
+            }
+            Node node = nodes().get(index);
             return node != null ? node : Node.NULL;
         }
         return Node.NULL;
@@ -66,6 +107,43 @@ public class NodeArray extends Node {
         return values().stream().map(mapper);
     }
 
+    /**
+     * The elements as longs, see {@link Node#asLong()}. Arrays holding only whole numbers are streamed
+     * directly from their packed storage.
+     */
+    public LongStream longs() {
+        load();
+        if (longs != null) {
+            return Arrays.stream(longs, 0, packed);
+        }
+        return values().stream().mapToLong(Node::asLong);
+    }
+
+    /**
+     * The elements as doubles, see {@link Node#asDouble()}. Arrays holding only numbers are streamed
+     * directly from their packed storage.
+     */
+    public DoubleStream doubles() {
+        load();
+        if (doubles != null) {
+            return Arrays.stream(doubles, 0, packed);
+        }
+        if (longs != null) {
+            return longs().asDoubleStream();
+        }
+        return values().stream().mapToDouble(Node::asDouble);
+    }
+
+    public long[] toLongArray() {
+        load();
+        return longs != null ? Arrays.copyOf(longs, packed) : longs().toArray();
+    }
+
+    public double[] toDoubleArray() {
+        load();
+        return doubles != null ? Arrays.copyOf(doubles, packed) : doubles().toArray();
+    }
+
     public boolean contains(Node key) {
         return contains(key.get());
     }
@@ -82,13 +160,77 @@ public class NodeArray extends Node {
     }
 
     public void add(Object object) {
-        checkEmpty();
-        list().add(Node.of(object));
+        add(Node.of(object));
     }
 
     public void add(Node value) {
         checkEmpty();
-        list().add(value);
+        load();
+        List<Node> nodes = nodes();
+        if (nodes.isEmpty()) {
+            if (value instanceof NodeLong && doubles == null) {
+                if (longs == null) {
+                    longs = new long[8];
+                } else if (packed == longs.length) {
+                    longs = Arrays.copyOf(longs, packed * 2);
+                }
+                longs[packed++] = value.asLong();
+                return;
+            }
+            if (value instanceof NodeDouble && longs == null) {
+                if (doubles == null) {
+                    doubles = new double[8];
+                } else if (packed == doubles.length) {
+                    doubles = Arrays.copyOf(doubles, packed * 2);
+                }
+                doubles[packed++] = value.asDouble();
+                return;
+            }
+            unpack();
+        }
+        nodes.add(value);
+    }
+
+    /**
+     * Creates an array of whole numbers that uses the given array as its packed storage, without copying it.
+     * The given array must not be modified afterwards.
+     */
+    public static NodeArray ofLongs(long[] values) {
+        NodeArray array = new NodeArray();
+        if (values.length > 0) {
+            array.longs = values;
+            array.packed = values.length;
+        }
+        return array;
+    }
+
+    /**
+     * Creates an array of numbers that uses the given array as its packed storage, without copying it.
+     * The given array must not be modified afterwards.
+     */
+    public static NodeArray ofDoubles(double[] values) {
+        NodeArray array = new NodeArray();
+        if (values.length > 0) {
+            array.doubles = values;
+            array.packed = values.length;
+        }
+        return array;
+    }
+
+    /**
+     * Whether the elements are whole numbers held in packed storage, so {@link #toLongArray()} just copies them
+     */
+    public boolean isPackedLongs() {
+        load();
+        return longs != null;
+    }
+
+    /**
+     * Whether the elements are numbers held in packed storage, so {@link #toDoubleArray()} just copies them
+     */
+    public boolean isPackedDoubles() {
+        load();
+        return doubles != null;
     }
 
     public boolean primitiveList() {
@@ -96,9 +238,128 @@ public class NodeArray extends Node {
         return first != null && first.isPrimitive();
     }
 
+    /**
+     * Number of packed elements, or -1 if the elements are stored as Nodes
+     */
+    int packedSize() {
+        load();
+        return longs != null || doubles != null ? packed : -1;
+    }
+
+    long[] packedLongs() {
+        return longs;
+    }
+
+    double[] packedDoubles() {
+        return doubles;
+    }
+
+    private Node packed(int index) {
+        return longs != null ? new NodeLong(longs[index]) : new NodeDouble(doubles[index]);
+    }
+
+    private void unpack() {
+        if (longs != null || doubles != null) {
+            List<Node> nodes = nodes();
+            ((ArrayList<Node>) nodes).ensureCapacity(packed);
+            for (int i = 0; i < packed; i++) {
+                nodes.add(packed(i));
+            }
+            longs = null;
+            doubles = null;
+            packed = 0;
+        }
+    }
+
+    /**
+     * Whether the array has been frozen, after which any attempt to modify it throws a NodeError
+     */
+    @Override
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    @Override
+    public NodeArray freeze() {
+        if (frozen) {
+            return this;
+        }
+        load();
+        if (longs != null) {
+            longs = Arrays.copyOf(longs, packed);
+        } else if (doubles != null) {
+            doubles = Arrays.copyOf(doubles, packed);
+        } else {
+            for (Node node : nodes()) {
+                node.freeze();
+            }
+            ((ArrayList<Node>) nodes()).trimToSize();
+        }
+        frozen = true;
+        return this;
+    }
+
+    @Override
+    public int hashCode() {
+        if (!frozen) {
+            return super.hashCode();
+        }
+        if (hash == 0) {
+            hash = super.hashCode();
+        }
+        return hash;
+    }
+
     private void checkEmpty() {
         if (!this.isPresent()) {
             throw new NodeError("Attempted to modify an EMPTY NodeArray!");
         }
+        if (frozen) {
+            throw new NodeError("Attempted to modify a frozen NodeArray!");
+        }
+    }
+
+    /**
+     * List view over packed storage. Elements are created as they are read, and any modification
+     * through the view first moves the array over to Node storage.
+     */
+    private class PackedList extends AbstractList<Node> implements RandomAccess {
+
+        @Override
+        public Node get(int index) {
+            if (longs == null && doubles == null) {
+                return nodes().get(index);
+            }
+            if (index < 0 || index >= packed) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + packed);
+            }
+            return packed(index);
+        }
+
+        @Override
+        public int size() {
+            return longs == null && doubles == null ? nodes().size() : packed;
+        }
+
+        @Override
+        public Node set(int index, Node element) {
+            checkEmpty();
+            unpack();
+            return nodes().set(index, element);
+        }
+
+        @Override
+        public void add(int index, Node element) {
+            checkEmpty();
+            unpack();
+            nodes().add(index, element);
+        }
+
+        @Override
+        public Node remove(int index) {
+            checkEmpty();
+            unpack();
+            return nodes().remove(index);
+        }
     }
 }
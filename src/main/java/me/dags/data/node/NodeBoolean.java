@@ -0,0 +1,45 @@
+package me.dags.data.node;
+
+/**
+ * The type of {@link Node#TRUE} and {@link Node#FALSE}
+ *
+ * @author dags <dags@dags.me>
+ */
+public class NodeBoolean extends Node {
+
+    private final boolean value;
+
+    NodeBoolean(boolean value) {
+        super(value);
+        this.value = value;
+    }
+
+    @Override
+    public Boolean asBoolean() {
+        return value;
+    }
+
+    public boolean booleanValue() {
+        return value;
+    }
+
+    @Override
+    public String asString() {
+        return value ? "true" : "false";
+    }
+
+    @Override
+    public boolean equalTo(Object other) {
+        return other instanceof Boolean && (Boolean) other == value;
+    }
+
+    @Override
+    public int hashCode() {
+        return Boolean.hashCode(value);
+    }
+
+    @Override
+    public String toString() {
+        return asString();
+    }
+}
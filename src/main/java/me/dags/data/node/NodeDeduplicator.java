@@ -0,0 +1,214 @@
+package me.dags.data.node;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replaces structurally equal values within one or more trees with a single shared instance.
+ * Objects and arrays are frozen as they are visited, so any later attempt to modify one of the shared
+ * instances throws a NodeError, and their hash codes are computed once and cached. Objects are only shared
+ * with objects holding the same keys in the same order, so deduplicating never reorders a document.
+ * Not thread-safe: use one deduplicator per thread, or per document.
+ *
+ * @author dags <dags@dags.me>
+ */
+public class NodeDeduplicator {
+
+    // estimated shallow sizes, in bytes, for a 64-bit JVM with compressed references
+    private static final int NODE_SIZE = 16;
+    private static final int BOXED_SIZE = 16;
+    private static final int OBJECT_SIZE = 40;
+    private static final int ARRAY_SIZE = 48;
+    private static final int ARRAY_HEADER = 16;
+    private static final int STRING_SIZE = 24;
+
+    private final Map<Key, Node> canonical = new HashMap<>();
+    private long nodesShared = 0;
+    private long bytesSaved = 0;
+
+    /**
+     * Deduplicates the tree in place, returning its canonical root. Every object and array in the tree is
+     * frozen. Values seen by earlier calls on this deduplicator are shared with this tree too.
+     */
+    public Node deduplicate(Node node) {
+        if (!node.isPresent()) {
+            return node;
+        }
+        if (node.isNodeObject()) {
+            NodeObject object = node.asNodeObject();
+            for (Map.Entry<Node, Node> entry : object.entries()) {
+                Node value = deduplicate(entry.getValue());
+                if (value != entry.getValue() && !object.isFrozen()) {
+                    entry.setValue(value);
+                }
+            }
+            object.freeze();
+        } else if (node.isNodeArray()) {
+            NodeArray array = node.asNodeArray();
+            if (array.packedSize() < 0) {
+                List<Node> values = array.values();
+                for (int i = 0; i < values.size(); i++) {
+                    Node value = deduplicate(values.get(i));
+                    if (value != values.get(i) && !array.isFrozen()) {
+                        values.set(i, value);
+                    }
+                }
+            }
+            array.freeze();
+        }
+        Node existing = canonical.putIfAbsent(new Key(node), node);
+        if (existing == null || existing == node) {
+            return node;
+        }
+        nodesShared++;
+        bytesSaved += estimateSize(node, existing);
+        return existing;
+    }
+
+    /**
+     * The number of values replaced by an equal, shared instance
+     */
+    public long nodesShared() {
+        return nodesShared;
+    }
+
+    /**
+     * An estimate of the heap freed by sharing, assuming nothing else holds on to the replaced values
+     */
+    public long bytesSaved() {
+        return bytesSaved;
+    }
+
+    /**
+     * The number of distinct values held by the deduplicator
+     */
+    public int size() {
+        return canonical.size();
+    }
+
+    /**
+     * Releases the canonical values, so that later calls no longer share with earlier ones
+     */
+    public void clear() {
+        canonical.clear();
+    }
+
+    @Override
+    public String toString() {
+        return "NodeDeduplicator{distinct=" + size() + ", shared=" + nodesShared + ", bytesSaved=" + bytesSaved + "}";
+    }
+
+    // children of a replaced object or array have already been replaced and counted, so only the node
+    // itself (and any String it alone holds) is counted here
+    private static long estimateSize(Node node, Node kept) {
+        if (node.isNodeObject()) {
+            int count = node.asNodeObject().count();
+            return OBJECT_SIZE + ARRAY_HEADER + 4L * count;
+        }
+        if (node.isNodeArray()) {
+            NodeArray array = node.asNodeArray();
+            int packed = array.packedSize();
+            if (packed >= 0) {
+                return ARRAY_SIZE + ARRAY_HEADER + 8L * packed;
+            }
+            return ARRAY_SIZE + ARRAY_HEADER + 4L * array.count();
+        }
+        if (node instanceof NodeString) {
+            String string = node.asString();
+            return string == kept.asString() ? NODE_SIZE : NODE_SIZE + STRING_SIZE + ARRAY_HEADER + string.length();
+        }
+        if (node instanceof NodeLong || node instanceof NodeDouble) {
+            return NODE_SIZE + 8;
+        }
+        return NODE_SIZE + BOXED_SIZE;
+    }
+
+    /**
+     * Identifies a node for sharing. NodeObject.equals() ignores key order, so objects are matched on their keys
+     * in order instead. Their values, and the elements of unpacked arrays, have already been replaced by their
+     * canonical instances, so they are compared by identity.
+     */
+    private static final class Key {
+
+        private final Node node;
+        private final int hash;
+
+        private Key(Node node) {
+            this.node = node;
+            this.hash = hash(node);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Node a = node;
+            Node b = ((Key) other).node;
+            if (a == b) {
+                return true;
+            }
+            if (a.isNodeObject() || b.isNodeObject()) {
+                return a.isNodeObject() && b.isNodeObject() && sameEntries(a.asNodeObject(), b.asNodeObject());
+            }
+            if (isUnpacked(a) && isUnpacked(b)) {
+                return sameElements(a.asNodeArray().values(), b.asNodeArray().values());
+            }
+            return a.equals(b);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        private static int hash(Node node) {
+            int hash = 1;
+            if (node.isNodeObject()) {
+                for (Map.Entry<Node, Node> entry : node.asNodeObject().entries()) {
+                    hash = 31 * (31 * hash + entry.getKey().hashCode()) + System.identityHashCode(entry.getValue());
+                }
+                return hash;
+            }
+            if (isUnpacked(node)) {
+                for (Node element : node.asNodeArray().values()) {
+                    hash = 31 * hash + System.identityHashCode(element);
+                }
+                return hash;
+            }
+            return node.hashCode();
+        }
+
+        private static boolean isUnpacked(Node node) {
+            return node.isNodeArray() && node.asNodeArray().packedSize() < 0;
+        }
+
+        private static boolean sameEntries(NodeObject a, NodeObject b) {
+            if (a.count() != b.count()) {
+                return false;
+            }
+            Iterator<Map.Entry<Node, Node>> others = b.entries().iterator();
+            for (Map.Entry<Node, Node> entry : a.entries()) {
+                Map.Entry<Node, Node> other = others.next();
+                if (entry.getValue() != other.getValue() || !entry.getKey().equals(other.getKey())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean sameElements(List<Node> a, List<Node> b) {
+            if (a.size() != b.size()) {
+                return false;
+            }
+            for (int i = 0; i < a.size(); i++) {
+                if (a.get(i) != b.get(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package me.dags.data.node;
+
+/**
+ * A decimal number held as a primitive double, boxed only when requested through {@link #asObject()}
+ *
+ * @author dags <dags@dags.me>
+ */
+public class NodeDouble extends Node {
+
+    private final double value;
+
+    NodeDouble(double value) {
+        super(null);
+        this.value = value;
+    }
+
+    @Override
+    Object get() {
+        return value;
+    }
+
+    @Override
+    public Boolean asBoolean() {
+        return false;
+    }
+
+    @Override
+    public Number asNumber() {
+        return value;
+    }
+
+    @Override
+    public long asLong() {
+        return (long) value;
+    }
+
+    @Override
+    public int asInt() {
+        return (int) value;
+    }
+
+    @Override
+    public double asDouble() {
+        return value;
+    }
+
+    @Override
+    public String asString() {
+        return Double.toString(value);
+    }
+
+    @Override
+    public boolean equalTo(Object other) {
+        return other instanceof Double && ((Double) other).equals(value);
+    }
+
+    @Override
+    boolean matches(Object raw) {
+        return raw instanceof Double && Double.doubleToLongBits((Double) raw) == Double.doubleToLongBits(value);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (other instanceof NodeDouble) {
+            // matches Double.equals(), so that NaN equals NaN and 0.0 does not equal -0.0
+            return Double.doubleToLongBits(((NodeDouble) other).value) == Double.doubleToLongBits(value);
+        }
+        return super.equals(other);
+    }
+
+    @Override
+    public int hashCode() {
+        return Double.hashCode(value);
+    }
+
+    @Override
+    public String toString() {
+        return Double.toString(value);
+    }
+}
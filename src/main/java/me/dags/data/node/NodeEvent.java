@@ -0,0 +1,16 @@
+package me.dags.data.node;
+
+/**
+ * The events produced by {@link NodeReader#nextEvent()}
+ *
+ * @author dags <dags@dags.me>
+ */
+public enum NodeEvent {
+    START_OBJECT,
+    END_OBJECT,
+    START_ARRAY,
+    END_ARRAY,
+    KEY,
+    VALUE,
+    END_DOCUMENT,
+}
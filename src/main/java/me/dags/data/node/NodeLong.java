@@ -0,0 +1,79 @@
+package me.dags.data.node;
+
+/**
+ * A whole number held as a primitive long, boxed only when requested through {@link #asObject()}
+ *
+ * @author dags <dags@dags.me>
+ */
+public class NodeLong extends Node {
+
+    private final long value;
+
+    NodeLong(long value) {
+        super(null);
+        this.value = value;
+    }
+
+    @Override
+    Object get() {
+        return value;
+    }
+
+    @Override
+    public Boolean asBoolean() {
+        return false;
+    }
+
+    @Override
+    public Number asNumber() {
+        return value;
+    }
+
+    @Override
+    public long asLong() {
+        return value;
+    }
+
+    @Override
+    public int asInt() {
+        return (int) value;
+    }
+
+    @Override
+    public double asDouble() {
+        return value;
+    }
+
+    @Override
+    public String asString() {
+        return Long.toString(value);
+    }
+
+    @Override
+    public boolean equalTo(Object other) {
+        return other instanceof Long && (Long) other == value;
+    }
+
+    @Override
+    boolean matches(Object raw) {
+        return raw instanceof Long && (Long) raw == value;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (other instanceof NodeLong) {
+            return ((NodeLong) other).value == value;
+        }
+        return super.equals(other);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(value);
+    }
+
+    @Override
+    public String toString() {
+        return Long.toString(value);
+    }
+}
@@ -1,27 +1,75 @@
 package me.dags.data.node;
 
-import java.util.Collection;
-import java.util.Collections;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.*;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
 public class NodeObject extends Node {
 
-    static final NodeObject EMPTY = new NodeObject(null);
+    // cast so that the frozen placeholder constructor is chosen over NodeObject(NodeShape)
+    static final NodeObject EMPTY = new NodeObject((Object) null);
+
+    private static final Node[] NO_NODES = new Node[0];
+
+    private NodeReader.Loader loader = null;
+    private int token = 0;
+
+    // keys in insertion order, possibly shared with other objects, and the value for each
+    private NodeShape shape;
+    private Node[] values = NO_NODES;
+
+    private boolean frozen = false;
+    private int hash = 0;
 
     public NodeObject() {
-        super(new LinkedHashMap<>());
+        this(NodeShape.unshared());
+    }
+
+    NodeObject(NodeShape shape) {
+        super(null);
+        this.shape = shape;
+    }
+
+    NodeObject(NodeReader.Loader loader, int token) {
+        this(loader.shapes);
+        this.loader = loader;
+        this.token = token;
     }
 
     private NodeObject(Object nop) {
-        super(Collections.emptyMap());
+        this(NodeShape.unshared());
+        this.frozen = true;
     }
 
-    @SuppressWarnings("unchecked")
-    private Map<Node,Node> map() {
-        return (Map<Node,Node>) get();
+    private void load() {
+        if (loader != null) {
+            NodeReader.Loader pending = loader;
+            loader = null;
+            pending.load(this, token);
+        }
+    }
+
+    /**
+     * A Map view of the entries, in insertion order
+     */
+    @Override
+    Object get() {
+        return new AbstractMap<Node, Node>() {
+            @Override
+            public Set<Map.Entry<Node, Node>> entrySet() {
+                return new AbstractSet<Map.Entry<Node, Node>>() {
+                    @Override
+                    public Iterator<Map.Entry<Node, Node>> iterator() {
+                        return entries().iterator();
+                    }
+
+                    @Override
+                    public int size() {
+                        return count();
+                    }
+                };
+            }
+        };
     }
 
     @Override
@@ -40,39 +88,58 @@ public class NodeObject extends Node {
     }
 
     public boolean empty() {
-        return map().isEmpty();
+        return count() == 0;
+    }
+
+    public int count() {
+        load();
+        return shape.size();
     }
 
     public Map<Object, Object> toMap() {
         return NodeTypeAdapters.deserialize(this);
     }
 
+    /**
+     * The entries in insertion order. Values can be replaced through Map.Entry.setValue(), and entries removed
+     * through the iterator.
+     */
     public Collection<Map.Entry<Node, Node>> entries() {
-        return map().entrySet();
+        return new AbstractCollection<Map.Entry<Node, Node>>() {
+            @Override
+            public Iterator<Map.Entry<Node, Node>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return count();
+            }
+        };
     }
 
     public Node get(Object key) {
-        if (!isPresent()) {
-            return Node.NULL;
-        }
-        Node node = map().get(Node.of(key));
-        return node == null ? Node.NULL : node;
+        return lookup(raw(key));
+    }
+
+    public Node get(String key) {
+        return lookup(key);
     }
 
     public NodeObject getObject(Object key) {
-        if (!isPresent()) {
-            return NodeObject.EMPTY;
-        }
-        Node node = get(key);
-        return node.isPresent() && node.isNodeObject() ? node.asNodeObject() : NodeObject.EMPTY;
+        return object(lookup(raw(key)));
+    }
+
+    public NodeObject getObject(String key) {
+        return object(lookup(key));
     }
 
     public NodeArray getArray(Object key) {
-        if (!isPresent()) {
-            return NodeArray.EMPTY;
-        }
-        Node node = get(key);
-        return node.isPresent() && node.isNodeArray() ? node.asNodeArray() : NodeArray.EMPTY;
+        return array(lookup(raw(key)));
+    }
+
+    public NodeArray getArray(String key) {
+        return array(lookup(key));
     }
 
     public Node getOrPut(Node key, Node value) {
@@ -92,11 +159,15 @@ public class NodeObject extends Node {
     }
 
     public boolean contains(Node key) {
-        return isPresent() && map().containsKey(key);
+        return isPresent() && find(key.get()) >= 0;
     }
 
     public boolean contains(Object key) {
-        return isPresent() && map().containsKey(Node.of(key));
+        return isPresent() && find(raw(key)) >= 0;
+    }
+
+    public boolean contains(String key) {
+        return isPresent() && find(key) >= 0;
     }
 
     public void put(Object k, Object v) {
@@ -108,11 +179,39 @@ public class NodeObject extends Node {
 
     public void putValue(Node k, Node v) {
         checkEmpty();
-        map().put(k, v);
+        int position = find(k.get());
+        if (position < 0) {
+            if (shape.isShared()) {
+                shape = shape.copy();
+            }
+            shape.add(k);
+            position = shape.size() - 1;
+        }
+        setValue(position, v);
+    }
+
+    /**
+     * Adds an entry while the object is being read. Objects that share their shape move on to the shared
+     * shape with the new key appended, rather than taking a copy of their own.
+     */
+    void putShared(Node k, Node v) {
+        int position = find(k.get());
+        if (position < 0) {
+            NodeShape next = shape.isShared() ? shape.next(k) : null;
+            if (next == null) {
+                putValue(k, v);
+                return;
+            }
+            shape = next;
+            position = shape.size() - 1;
+        }
+        setValue(position, v);
     }
 
     public void ifPresent(Object key, Consumer<Node> valueConsumer) {
-        ifPresent(Node.of(key), valueConsumer);
+        if (isPresent()) {
+            valueConsumer.accept(lookup(raw(key)));
+        }
     }
 
     public void ifPresent(Node key, Consumer<Node> valueConsumer) {
@@ -126,7 +225,7 @@ public class NodeObject extends Node {
 
     public <T> T map(Object key, Function<Node, T> mapper, T defaultVal) {
         if (isPresent()) {
-            Node node = get(Node.of(key));
+            Node node = get(key);
             if (node.isPresent()) {
                 return mapper.apply(node);
             }
@@ -134,9 +233,231 @@ public class NodeObject extends Node {
         return defaultVal;
     }
 
+    /**
+     * Equal to another NodeObject holding equal entries, regardless of their order
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof NodeObject) || !isPresent() || !((NodeObject) other).isPresent()) {
+            return false;
+        }
+        NodeObject object = (NodeObject) other;
+        if (count() != object.count()) {
+            return false;
+        }
+        for (int i = 0; i < shape.size(); i++) {
+            int position = object.find(shape.key(i).get());
+            if (position < 0 || !values[i].equals(object.values[position])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Follows the Map.hashCode() contract, so is independent of entry order
+     */
+    @Override
+    public int hashCode() {
+        if (frozen && this.hash != 0) {
+            return this.hash;
+        }
+        load();
+        int hash = 0;
+        for (int i = 0; i < shape.size(); i++) {
+            hash += shape.key(i).hashCode() ^ values[i].hashCode();
+        }
+        if (frozen) {
+            this.hash = hash;
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        load();
+        StringBuilder builder = new StringBuilder("{");
+        for (int i = 0; i < shape.size(); i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(shape.key(i)).append('=').append(values[i]);
+        }
+        return builder.append('}').toString();
+    }
+
+    private Node lookup(Object raw) {
+        if (!isPresent()) {
+            return Node.NULL;
+        }
+        int position = find(raw);
+        return position < 0 ? Node.NULL : values[position];
+    }
+
+    private int find(Object raw) {
+        load();
+        return shape.find(raw);
+    }
+
+    private void setValue(int position, Node value) {
+        if (position >= values.length) {
+            values = Arrays.copyOf(values, Math.max(4, values.length * 2));
+        }
+        values[position] = value;
+    }
+
+    private void remove(int position) {
+        checkEmpty();
+        if (shape.isShared()) {
+            shape = shape.copy();
+        }
+        shape.remove(position);
+        int size = shape.size();
+        System.arraycopy(values, position + 1, values, position, size - position);
+        values[size] = null;
+    }
+
+    private static NodeObject object(Node node) {
+        return node.isPresent() && node.isNodeObject() ? node.asNodeObject() : NodeObject.EMPTY;
+    }
+
+    private static NodeArray array(Node node) {
+        return node.isPresent() && node.isNodeArray() ? node.asNodeArray() : NodeArray.EMPTY;
+    }
+
+    private static Object raw(Object key) {
+        if (key instanceof String) {
+            return key;
+        }
+        return key instanceof Node ? ((Node) key).get() : Node.of(key).get();
+    }
+
+    /**
+     * Whether the object has been frozen, after which any attempt to modify it throws a NodeError
+     */
+    @Override
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    @Override
+    public NodeObject freeze() {
+        if (frozen) {
+            return this;
+        }
+        load();
+        int size = shape.size();
+        for (int i = 0; i < size; i++) {
+            values[i].freeze();
+        }
+        if (values.length != size) {
+            values = Arrays.copyOf(values, size);
+        }
+        if (!shape.isShared()) {
+            shape.trim();
+        }
+        frozen = true;
+        return this;
+    }
+
     private void checkEmpty() {
         if (!this.isPresent()) {
             throw new NodeError("Attempted to modify an EMPTY NodeObject!");
         }
+        if (frozen) {
+            throw new NodeError("Attempted to modify a frozen NodeObject!");
+        }
+    }
+
+    private class EntryIterator implements Iterator<Map.Entry<Node, Node>> {
+
+        private int next = 0;
+        private int last = -1;
+
+        private EntryIterator() {
+            load();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < shape.size();
+        }
+
+        @Override
+        public Map.Entry<Node, Node> next() {
+            if (next >= shape.size()) {
+                throw new NoSuchElementException();
+            }
+            last = next++;
+            return new ObjectEntry(last);
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0) {
+                throw new IllegalStateException();
+            }
+            NodeObject.this.remove(last);
+            next = last;
+            last = -1;
+        }
+    }
+
+    private class ObjectEntry implements Map.Entry<Node, Node> {
+
+        private final Node key;
+        private final int position;
+
+        private ObjectEntry(int position) {
+            this.key = shape.key(position);
+            this.position = position;
+        }
+
+        @Override
+        public Node getKey() {
+            return key;
+        }
+
+        @Override
+        public Node getValue() {
+            return removed() ? Node.NULL : values[position];
+        }
+
+        @Override
+        public Node setValue(Node value) {
+            if (removed()) {
+                throw new IllegalStateException("Entry has been removed");
+            }
+            checkEmpty();
+            Node previous = values[position];
+            values[position] = value;
+            return previous;
+        }
+
+        private boolean removed() {
+            return position >= shape.size() || shape.key(position) != key;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) other;
+            return key.equals(entry.getKey()) && getValue().equals(entry.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode() ^ getValue().hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + getValue();
+        }
     }
 }
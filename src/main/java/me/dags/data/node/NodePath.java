@@ -0,0 +1,120 @@
+package me.dags.data.node;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A compiled path into a Node tree, such as {@code a.b[3].c}. Keys are separated by '.', array indices are
+ * written in square brackets and keys containing '.', '[' or ']' can be double-quoted.
+ *
+ * @author dags <dags@dags.me>
+ */
+public final class NodePath {
+
+    private final String path;
+    private final Object[] segments;
+
+    private NodePath(String path, Object[] segments) {
+        this.path = path;
+        this.segments = segments;
+    }
+
+    public int length() {
+        return segments.length;
+    }
+
+    public boolean isIndex(int segment) {
+        return segments[segment] instanceof Integer;
+    }
+
+    public int index(int segment) {
+        return (Integer) segments[segment];
+    }
+
+    public String key(int segment) {
+        return segments[segment].toString();
+    }
+
+    /**
+     * Follows the path from the given root, returning Node.NULL if any part of it is missing
+     */
+    public Node get(Node root) {
+        Node node = root;
+        for (Object segment : segments) {
+            if (segment instanceof Integer) {
+                node = node.asNodeArray().get((Integer) segment);
+            } else {
+                node = node.asNodeObject().get(segment);
+            }
+            if (!node.isPresent()) {
+                return Node.NULL;
+            }
+        }
+        return node;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return this == other || (other instanceof NodePath && Arrays.equals(segments, ((NodePath) other).segments));
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(segments);
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+
+    public static NodePath of(String path) {
+        List<Object> segments = new ArrayList<>();
+        StringBuilder key = new StringBuilder();
+        boolean quoted = false;
+        boolean keyed = false;
+        for (int i = 0; i < path.length(); i++) {
+            char c = path.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    quoted = false;
+                } else {
+                    key.append(c);
+                }
+            } else if (c == '"') {
+                quoted = keyed = true;
+            } else if (c == '.' || c == '[') {
+                if (keyed || key.length() > 0) {
+                    segments.add(key.toString());
+                    key.setLength(0);
+                    keyed = false;
+                } else if (c == '.' && (i == 0 || path.charAt(i - 1) != ']')) {
+                    throw new NodeError("Empty key at position " + i + " in path '" + path + "'");
+                }
+                if (c == '[') {
+                    int end = path.indexOf(']', i);
+                    if (end == -1) {
+                        throw new NodeError("Unclosed index at position " + i + " in path '" + path + "'");
+                    }
+                    try {
+                        segments.add(Integer.parseInt(path.substring(i + 1, end).trim()));
+                    } catch (NumberFormatException e) {
+                        throw new NodeError("Invalid index at position " + i + " in path '" + path + "'");
+                    }
+                    i = end;
+                }
+            } else {
+                key.append(c);
+                keyed = true;
+            }
+        }
+        if (quoted) {
+            throw new NodeError("Unclosed quote in path '" + path + "'");
+        }
+        if (keyed) {
+            segments.add(key.toString());
+        }
+        return new NodePath(path, segments.toArray());
+    }
+}
@@ -1,37 +1,77 @@
 package me.dags.data.node;
 
+import me.dags.data.StringPool;
 import me.dags.data.StringUtils;
 
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
 
 /**
  * @author dags <dags@dags.me>
  */
 public abstract class NodeReader implements Closeable {
 
-    private static final char UNDEFINED = (char) -2;
+    protected static final char EOF = (char) -1;
+    private static final int BLOCK_SIZE = 8192;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
 
-    private final InputStreamReader reader;
-    private char last = UNDEFINED;
-    private int pos = 0;
+    private static final int OBJECT_KEY = 0;
+    private static final int OBJECT_VALUE = 1;
+    private static final int ROOT_KEY = 2;
+    private static final int ROOT_VALUE = 3;
+    private static final int ARRAY = 4;
 
-    private char[] buf = new char[4096];
+    private final Reader reader;
+    private final char[] chars;
+    private int index = 0;
+    private int limit = 0;
+    private long consumed = 0;
+    private char last = EOF;
+
+    private char[] buf = new char[128];
     private int bufPos = 0;
 
+    private final NodeShape shapes = NodeShape.root();
+    private StringPool stringPool = null;
+
+    private int[] frames = new int[16];
+    private int depth = -1;
+    private NodeEvent event = null;
+    private Node current = Node.NULL;
+
     protected NodeReader(InputStream inputStream) {
         reader = new InputStreamReader(inputStream, StringUtils.UTF_8);
+        chars = new char[BLOCK_SIZE];
     }
 
-    protected int read() throws IOException {
-        return reader.read();
+    /**
+     * For readers that supply their own input and override the lexer methods (readChar, nextToken, peekChar,
+     * previous, skip, position and readString)
+     */
+    protected NodeReader() {
+        reader = null;
+        chars = null;
     }
 
     public Node readNode() throws IOException {
-        char c = nextToken();
+        return readValue(nextToken());
+    }
+
+    /**
+     * Reads the value that begins with the already consumed char {@code c}
+     */
+    protected Node readValue(char c) throws IOException {
         switch (c) {
             case '{':
                 return readObject();
@@ -44,12 +84,275 @@ public abstract class NodeReader implements Closeable {
         }
     }
 
+    /**
+     * Advances to the next structural event without building a tree. Keys and scalar values are available
+     * through {@link #nodeValue()} and the typed accessors after a KEY or VALUE event. Once the input is exhausted
+     * END_DOCUMENT is returned indefinitely.
+     */
+    public NodeEvent nextEvent() throws IOException {
+        if (depth < 0) {
+            depth = 0;
+            char c = nextEventToken();
+            if (c == EOF) {
+                return event = NodeEvent.END_DOCUMENT;
+            }
+            if (beginRoot(c)) {
+                previous();
+                push(ROOT_KEY);
+                return event = NodeEvent.START_OBJECT;
+            }
+            return startValue(c);
+        }
+        if (depth == 0) {
+            return event = NodeEvent.END_DOCUMENT;
+        }
+        char c = nextEventToken();
+        int frame = frames[depth - 1];
+        switch (frame) {
+            case OBJECT_KEY:
+            case ROOT_KEY:
+                // only a root without braces may be ended by the end of the input
+                if (c == EOF && frame == OBJECT_KEY) {
+                    throw unexpectedEnd();
+                }
+                if (c == EOF || (c == '}' && frame == OBJECT_KEY)) {
+                    depth--;
+                    return event = NodeEvent.END_OBJECT;
+                }
+                frames[depth - 1] = frame + 1;
+                current = readValue(c);
+                return event = NodeEvent.KEY;
+            case OBJECT_VALUE:
+            case ROOT_VALUE:
+                frames[depth - 1] = frame - 1;
+                return startValue(c);
+            default:
+                if (c == EOF) {
+                    throw unexpectedEnd();
+                }
+                if (c == ']') {
+                    depth--;
+                    return event = NodeEvent.END_ARRAY;
+                }
+                return startValue(c);
+        }
+    }
+
+    /**
+     * The most recent event returned by {@link #nextEvent()}
+     */
+    public NodeEvent currentEvent() {
+        return event;
+    }
+
+    /**
+     * The number of objects and arrays currently open
+     */
+    public int depth() {
+        return Math.max(depth, 0);
+    }
+
+    /**
+     * Reads the whole of the current event's value. After START_OBJECT or START_ARRAY the rest of that
+     * object/array is read into a Node and the reader moves past its end; after KEY or VALUE the current
+     * key/value is returned.
+     */
+    public Node readSubtree() throws IOException {
+        if (event == NodeEvent.START_OBJECT) {
+            Node node = frames[depth - 1] == ROOT_KEY ? readRootEntries() : readObject();
+            depth--;
+            event = NodeEvent.END_OBJECT;
+            return node;
+        }
+        if (event == NodeEvent.START_ARRAY) {
+            Node node = readArray();
+            depth--;
+            event = NodeEvent.END_ARRAY;
+            return node;
+        }
+        return nodeValue();
+    }
+
+    /**
+     * Skips over the next value (the value of the current KEY, or the next element of the current array)
+     * without building any Nodes or Strings. Returns false, consuming nothing, if the enclosing object or
+     * array has no more values.
+     */
+    public boolean skipValue() throws IOException {
+        char c = nextEventToken();
+        if (c == EOF || c == '}' || c == ']') {
+            previous();
+            return false;
+        }
+        if (depth > 0 && (frames[depth - 1] == OBJECT_VALUE || frames[depth - 1] == ROOT_VALUE)) {
+            frames[depth - 1]--;
+        }
+        if (c == '{' || c == '[') {
+            skipContainer();
+        } else if (c == '"') {
+            skipStringBody();
+        } else {
+            skipScalar();
+        }
+        current = Node.NULL;
+        event = NodeEvent.VALUE;
+        return true;
+    }
+
+    /**
+     * Skips the remainder of the innermost open object or array without building any Nodes or Strings.
+     * The next event is whatever follows its end.
+     */
+    public void skipChildren() throws IOException {
+        if (depth <= 0) {
+            return;
+        }
+        if (frames[depth - 1] == ROOT_KEY || frames[depth - 1] == ROOT_VALUE) {
+            while (readChar() != EOF) {
+                if (lastChar() == '"') {
+                    skipStringBody();
+                }
+            }
+            depth--;
+            event = NodeEvent.END_OBJECT;
+            return;
+        }
+        event = frames[depth - 1] == ARRAY ? NodeEvent.END_ARRAY : NodeEvent.END_OBJECT;
+        depth--;
+        skipContainer();
+    }
+
+    /**
+     * Selects the values at the given paths, skipping every subtree that cannot contain a match.
+     * Paths that are not present in the input are absent from the result.
+     */
+    public Map<NodePath, Node> select(Collection<NodePath> paths) throws IOException {
+        return new NodeSelector(paths).select(this);
+    }
+
+    private void skipContainer() throws IOException {
+        int open = 1;
+        while (open > 0) {
+            char c = readChar();
+            switch (c) {
+                case '"':
+                    skipStringBody();
+                    break;
+                case '{':
+                case '[':
+                    open++;
+                    break;
+                case '}':
+                case ']':
+                    open--;
+                    break;
+                case EOF:
+                    throw unexpectedEnd();
+            }
+        }
+    }
+
+    private void skipStringBody() throws IOException {
+        char c = readChar();
+        while (c != '"' && c != EOF) {
+            if (c == '\\') {
+                readChar();
+            }
+            c = readChar();
+        }
+    }
+
+    private void skipScalar() throws IOException {
+        char c = readChar();
+        while (c != EOF && !skipChar(c) && !isSeparator(c) && c != '}' && c != ']') {
+            c = readChar();
+        }
+        previous();
+    }
+
+    public Node nodeValue() {
+        return event == NodeEvent.KEY || event == NodeEvent.VALUE ? current : Node.NULL;
+    }
+
+    public String stringValue() {
+        return nodeValue().asString();
+    }
+
+    public long longValue() {
+        return nodeValue().asLong();
+    }
+
+    public double doubleValue() {
+        return nodeValue().asDouble();
+    }
+
+    public boolean booleanValue() {
+        return nodeValue().asBoolean();
+    }
+
+    /**
+     * Called with the first token of the document when reading events. Returns true if the document is an
+     * object without enclosing braces, in which case its entries run until the end of input.
+     */
+    protected boolean beginRoot(char first) throws IOException {
+        return false;
+    }
+
+    protected boolean isSeparator(char c) {
+        return c == ',' || c == ':';
+    }
+
+    private char nextEventToken() throws IOException {
+        char c = nextToken();
+        while (isSeparator(c)) {
+            c = nextToken();
+        }
+        return c;
+    }
+
+    private NodeEvent startValue(char c) throws IOException {
+        switch (c) {
+            case '{':
+                push(OBJECT_KEY);
+                return event = NodeEvent.START_OBJECT;
+            case '[':
+                push(ARRAY);
+                return event = NodeEvent.START_ARRAY;
+            case EOF:
+                throw unexpectedEnd();
+            default:
+                current = readValue(c);
+                return event = NodeEvent.VALUE;
+        }
+    }
+
+    private NodeError unexpectedEnd() {
+        return new NodeError("Unexpected end of input at position " + position());
+    }
+
+    private NodeObject readRootEntries() throws IOException {
+        NodeObject object = newObject();
+        while (peekToken() != EOF) {
+            Node key = readNode();
+            Node value = readNode();
+            putEntry(object, key, value);
+        }
+        return object;
+    }
+
+    private void push(int frame) {
+        if (depth >= frames.length) {
+            frames = Arrays.copyOf(frames, frames.length * 2);
+        }
+        frames[depth++] = frame;
+    }
+
     protected NodeObject readObject() throws IOException {
-        NodeObject object = new NodeObject();
+        NodeObject object = newObject();
         while (peekToken() != '}') {
             Node key = readNode();
             Node value = readNode();
-            object.putValue(key,  value);
+            putEntry(object, key, value);
         }
         next();
         return object;
@@ -67,30 +370,187 @@ public abstract class NodeReader implements Closeable {
 
     protected Node readString() throws IOException {
         resetBuffer();
-        char c = readChar();
-        boolean escape = false;
-        while (escape || c != '"') {
-            appendToBuffer(c);
-            escape = c == '\\';
-            c = readChar();
+        while (index < limit || fill(1)) {
+            int start = index;
+            while (index < limit) {
+                char c = chars[index];
+                if (c == '"') {
+                    appendToBuffer(chars, start, index - start);
+                    index++;
+                    last = c;
+                    return newNode(bufferToString());
+                }
+                if (c == '\\') {
+                    break;
+                }
+                index++;
+            }
+            appendToBuffer(chars, start, index - start);
+            if (index < limit) {
+                index++;
+                appendEscape(readChar());
+            }
         }
+        last = EOF;
         return newNode(bufferToString());
     }
 
+    /**
+     * Decodes the escape sequence following a backslash into the token buffer, {@code c} being the char after
+     * the backslash. Unrecognised escapes stand for the escaped char itself.
+     */
+    protected void appendEscape(char c) throws IOException {
+        switch (c) {
+            case 'n':
+                appendToBuffer('\n');
+                break;
+            case 't':
+                appendToBuffer('\t');
+                break;
+            case 'r':
+                appendToBuffer('\r');
+                break;
+            case 'b':
+                appendToBuffer('\b');
+                break;
+            case 'f':
+                appendToBuffer('\f');
+                break;
+            case 'u':
+                int code = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(readChar(), 16);
+                    if (digit < 0) {
+                        throw new NodeError("Invalid unicode escape at position " + position());
+                    }
+                    code = (code << 4) | digit;
+                }
+                appendToBuffer((char) code);
+                break;
+            case EOF:
+                break;
+            default:
+                appendToBuffer(c);
+        }
+    }
+
     protected Node readNumber() throws IOException {
+        long start = position() - 1;
         resetBuffer();
         char c = lastChar();
-        boolean isDouble = false;
+        char previous = c;
         while (true) {
             appendToBuffer(c);
-            isDouble = isDouble || c == '.' || c == 'E';
-            if (!isNumberChar(c = readChar())) {
+            c = readChar();
+            if (!isNumberChar(c) && !(c == '+' && (previous == 'e' || previous == 'E'))) {
                 previous();
                 break;
             }
+            previous = c;
+        }
+        Node number = parseNumber();
+        if (number == null) {
+            throw new NodeError("Malformed number '" + bufferToString() + "' at position " + start);
+        }
+        return number;
+    }
+
+    /**
+     * Parses the token buffer as a number in place. Integers that fit are read as longs, larger ones as
+     * BigIntegers. Decimals with at most 15 significant digits and a small exponent are converted exactly from
+     * the digits, others are left to Double.parseDouble (or BigDecimal if they exceed the range of a double).
+     * Returns null if the buffer does not hold a well-formed number, or holds one whose exponent is too large
+     * even for a BigDecimal.
+     */
+    protected Node parseNumber() {
+        char[] chars = buf;
+        int end = bufPos;
+        int i = 0;
+        boolean negative = i < end && chars[i] == '-';
+        if (negative) {
+            i++;
+        }
+        long mantissa = 0;
+        int significant = 0;
+        int scale = 0;
+        boolean truncated = false;
+        int intDigits = 0;
+        for (; i < end && isDigit(chars[i]); i++, intDigits++) {
+            if (significant < 18) {
+                mantissa = mantissa * 10 + (chars[i] - '0');
+                significant += mantissa > 0 ? 1 : 0;
+            } else {
+                scale++;
+                truncated = true;
+            }
+        }
+        boolean decimal = false;
+        int fracDigits = 0;
+        if (i < end && chars[i] == '.') {
+            decimal = true;
+            for (i++; i < end && isDigit(chars[i]); i++, fracDigits++) {
+                if (significant < 18) {
+                    mantissa = mantissa * 10 + (chars[i] - '0');
+                    significant += mantissa > 0 ? 1 : 0;
+                    scale--;
+                } else {
+                    truncated = true;
+                }
+            }
+            if (fracDigits == 0) {
+                return null;
+            }
+        }
+        if (intDigits == 0 && fracDigits == 0) {
+            return null;
+        }
+        if (i < end && (chars[i] == 'e' || chars[i] == 'E')) {
+            decimal = true;
+            i++;
+            boolean negativeExp = i < end && chars[i] == '-';
+            if (i < end && (chars[i] == '-' || chars[i] == '+')) {
+                i++;
+            }
+            int exponent = 0;
+            int expDigits = 0;
+            for (; i < end && isDigit(chars[i]); i++, expDigits++) {
+                if (exponent < 100000) {
+                    exponent = exponent * 10 + (chars[i] - '0');
+                }
+            }
+            if (expDigits == 0) {
+                return null;
+            }
+            scale += negativeExp ? -exponent : exponent;
+        }
+        if (i != end) {
+            return null;
+        }
+        if (!decimal) {
+            if (!truncated) {
+                return newNode(negative ? -mantissa : mantissa);
+            }
+            BigInteger big = new BigInteger(new String(chars, 0, end));
+            return big.bitLength() < 64 ? newNode(big.longValue()) : newNode(big);
+        }
+        if (!truncated && significant <= 15 && scale >= -22 && scale <= 22) {
+            double value = scale < 0 ? mantissa / POWERS_OF_TEN[-scale] : mantissa * POWERS_OF_TEN[scale];
+            return newNode(negative ? -value : value);
+        }
+        String text = new String(chars, 0, end);
+        double value = Double.parseDouble(text);
+        if (!Double.isInfinite(value)) {
+            return newNode(value);
+        }
+        try {
+            return newNode(new BigDecimal(text));
+        } catch (NumberFormatException e) {
+            return null;
         }
-        Number number = Double.valueOf(bufferToString());
-        return newNode(isDouble ? number : number.longValue());
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
     }
 
     protected boolean skipChar(char c) throws IOException {
@@ -117,20 +577,20 @@ public abstract class NodeReader implements Closeable {
     }
 
     protected char readChar() throws IOException {
-        if (pos == 0) {
-            last = (char) read();
-        } else {
-            pos = 0;
+        if (index < limit || fill(1)) {
+            return last = chars[index++];
         }
-        return last;
+        return last = EOF;
     }
 
     protected char nextToken() throws IOException {
-        char c = readChar();
-        while (skipChar(c)) {
-            c = readChar();
+        while (index < limit || fill(1)) {
+            char c = chars[index++];
+            if (!skipChar(c)) {
+                return last = c;
+            }
         }
-        return c;
+        return last = EOF;
     }
 
     protected char peekToken() throws IOException {
@@ -139,12 +599,24 @@ public abstract class NodeReader implements Closeable {
         return c;
     }
 
+    /**
+     * Returns the char {@code ahead} places after the current position without consuming it, or EOF
+     */
+    protected char peekChar(int ahead) throws IOException {
+        if (index + ahead < limit || fill(ahead + 1)) {
+            return chars[index + ahead];
+        }
+        return EOF;
+    }
+
     protected char lastChar() {
         return last;
     }
 
     protected void previous() throws IOException {
-        pos = 1;
+        if (last != EOF && index > 0) {
+            index--;
+        }
     }
 
     protected void next() throws IOException {
@@ -152,15 +624,92 @@ public abstract class NodeReader implements Closeable {
     }
 
     protected void skip(int places) throws IOException {
-        while (places-- > 0) {
-            next();
+        while (places > 0) {
+            if (index >= limit && !fill(1)) {
+                last = EOF;
+                return;
+            }
+            int step = Math.min(places, limit - index);
+            index += step;
+            places -= step;
+            last = chars[index - 1];
+        }
+    }
+
+    /**
+     * The number of chars consumed from the underlying input so far
+     */
+    protected long position() {
+        return consumed + index;
+    }
+
+    /**
+     * Ensures at least {@code required} unread chars are buffered, reading whole blocks from the underlying input.
+     * The char before the current position is retained so that {@link #previous()} remains valid across refills.
+     */
+    private boolean fill(int required) throws IOException {
+        int keep = index > 0 ? index - 1 : 0;
+        if (keep > 0) {
+            System.arraycopy(chars, keep, chars, 0, limit - keep);
+            consumed += keep;
+            index -= keep;
+            limit -= keep;
+        }
+        while (limit - index < required) {
+            if (limit == chars.length) {
+                return false;
+            }
+            int read = reader.read(chars, limit, chars.length - limit);
+            if (read < 0) {
+                return false;
+            }
+            limit += read;
         }
+        return true;
+    }
+
+    /**
+     * Creates a NodeObject whose entries are supplied by the loader the first time they are accessed
+     */
+    protected static NodeObject lazyObject(Loader loader, int token) {
+        return new NodeObject(loader, token);
+    }
+
+    /**
+     * Creates a NodeArray whose elements are supplied by the loader the first time they are accessed
+     */
+    protected static NodeArray lazyArray(Loader loader, int token) {
+        return new NodeArray(loader, token);
+    }
+
+    /**
+     * Creates an empty NodeObject that shares its key layout with any other object created by this reader
+     * that is given the same keys in the same order through {@link #putEntry(NodeObject, Node, Node)}
+     */
+    protected NodeObject newObject() {
+        return new NodeObject(shapes);
+    }
+
+    protected static void putEntry(NodeObject object, Node key, Node value) {
+        object.putShared(key, value);
     }
 
     protected Node newNode(Object value) {
         return new Node(value);
     }
 
+    protected Node newNode(String value) {
+        return new NodeString(value);
+    }
+
+    protected Node newNode(long value) {
+        return new NodeLong(value);
+    }
+
+    protected Node newNode(double value) {
+        return new NodeDouble(value);
+    }
+
     protected void appendToBuffer(char c) {
         if (bufPos >= buf.length) {
             buf = Arrays.copyOf(buf, buf.length * 2);
@@ -168,16 +717,57 @@ public abstract class NodeReader implements Closeable {
         buf[bufPos++] = c;
     }
 
+    protected void appendToBuffer(char[] chars, int start, int length) {
+        if (bufPos + length > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, bufPos + length));
+        }
+        System.arraycopy(chars, start, buf, bufPos, length);
+        bufPos += length;
+    }
+
     protected void resetBuffer() {
         bufPos = 0;
     }
 
+    /**
+     * Creates a String from the buffer, taking it from the string pool if one has been set and the String is
+     * short enough to be pooled
+     */
     protected String bufferToString() {
+        if (stringPool != null && bufPos <= StringPool.MAX_LENGTH) {
+            return stringPool.intern(buf, 0, bufPos);
+        }
         return new String(buf, 0, bufPos);
     }
 
+    /**
+     * Sets the pool that keys and short string values are taken from, which may be shared between readers
+     */
+    public void setStringPool(StringPool stringPool) {
+        this.stringPool = stringPool;
+    }
+
+    protected StringPool stringPool() {
+        return stringPool;
+    }
+
     @Override
     public void close() throws IOException {
-        reader.close();
+        if (reader != null) {
+            reader.close();
+        }
+    }
+
+    /**
+     * Supplies the contents of lazily read objects and arrays. The token identifies which object or array
+     * of the source is being loaded. Loading happens on the first access and is not synchronized.
+     */
+    protected static abstract class Loader {
+
+        final NodeShape shapes = NodeShape.root();
+
+        protected abstract void load(NodeObject object, int token);
+
+        protected abstract void load(NodeArray array, int token);
     }
 }
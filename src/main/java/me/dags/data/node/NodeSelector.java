@@ -0,0 +1,121 @@
+package me.dags.data.node;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Walks a NodeReader's events, descending only into the keys/indices named by a set of paths and skipping
+ * everything else
+ *
+ * @author dags <dags@dags.me>
+ */
+class NodeSelector {
+
+    private final Branch root = new Branch();
+
+    NodeSelector(Collection<NodePath> paths) {
+        for (NodePath path : paths) {
+            Branch branch = root;
+            for (int i = 0; i < path.length(); i++) {
+                branch = path.isIndex(i) ? branch.index(path.index(i)) : branch.key(path.key(i));
+            }
+            branch.paths.add(path);
+        }
+    }
+
+    Map<NodePath, Node> select(NodeReader reader) throws IOException {
+        Map<NodePath, Node> results = new LinkedHashMap<>();
+        NodeEvent event = reader.nextEvent();
+        if (event != NodeEvent.END_DOCUMENT) {
+            visit(reader, event, root, results);
+        }
+        return results;
+    }
+
+    private void visit(NodeReader reader, NodeEvent event, Branch branch, Map<NodePath, Node> results) throws IOException {
+        boolean container = event == NodeEvent.START_OBJECT || event == NodeEvent.START_ARRAY;
+        if (!branch.paths.isEmpty()) {
+            Node node = container ? reader.readSubtree() : reader.nodeValue();
+            branch.collect(node, results);
+        } else if (event == NodeEvent.START_OBJECT) {
+            visitObject(reader, branch, results);
+        } else if (event == NodeEvent.START_ARRAY) {
+            visitArray(reader, branch, results);
+        }
+    }
+
+    private void visitObject(NodeReader reader, Branch branch, Map<NodePath, Node> results) throws IOException {
+        int remaining = branch.keys.size();
+        while (remaining > 0) {
+            if (reader.nextEvent() != NodeEvent.KEY) {
+                return;
+            }
+            Branch child = branch.keys.get(reader.stringValue());
+            if (child == null) {
+                reader.skipValue();
+            } else {
+                visit(reader, reader.nextEvent(), child, results);
+                remaining--;
+            }
+        }
+        reader.skipChildren();
+    }
+
+    private void visitArray(NodeReader reader, Branch branch, Map<NodePath, Node> results) throws IOException {
+        for (int index = 0; index < branch.indices.length; index++) {
+            Branch child = branch.indices[index];
+            if (child == null) {
+                if (!reader.skipValue()) {
+                    reader.nextEvent();
+                    return;
+                }
+            } else {
+                NodeEvent event = reader.nextEvent();
+                if (event == NodeEvent.END_ARRAY) {
+                    return;
+                }
+                visit(reader, event, child, results);
+            }
+        }
+        reader.skipChildren();
+    }
+
+    private static class Branch {
+
+        private final List<NodePath> paths = new ArrayList<>(1);
+        private final Map<String, Branch> keys = new HashMap<>();
+        private Branch[] indices = new Branch[0];
+
+        private Branch key(String key) {
+            return keys.computeIfAbsent(key, k -> new Branch());
+        }
+
+        private Branch index(int index) {
+            if (index >= indices.length) {
+                indices = Arrays.copyOf(indices, index + 1);
+            }
+            if (indices[index] == null) {
+                indices[index] = new Branch();
+            }
+            return indices[index];
+        }
+
+        private void collect(Node node, Map<NodePath, Node> results) {
+            for (NodePath path : paths) {
+                results.put(path, node);
+            }
+            for (Map.Entry<String, Branch> entry : keys.entrySet()) {
+                Node child = node.asNodeObject().get(entry.getKey());
+                if (child.isPresent()) {
+                    entry.getValue().collect(child, results);
+                }
+            }
+            for (int i = 0; i < indices.length; i++) {
+                Node child = node.asNodeArray().get(i);
+                if (indices[i] != null && child.isPresent()) {
+                    indices[i].collect(child, results);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package me.dags.data.node;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The ordered keys of a NodeObject, plus a hash index of them once there are more than a few.
+ * Shared shapes are immutable and reached from a root through transitions that each add one key, so that
+ * objects read with the same keys in the same order hold one shape between them and only store their own
+ * values. Unshared shapes belong to a single object and are modified in place.
+ *
+ * @author dags <dags@dags.me>
+ */
+final class NodeShape {
+
+    // shapes with more keys than this are given a hash index, smaller ones are scanned linearly
+    private static final int SCAN_LIMIT = 8;
+    // past these limits objects stop sharing and take a copy of their shape
+    private static final int MAX_SHARED_KEYS = 64;
+    private static final int MAX_TRANSITIONS = 32;
+
+    private static final Node[] NO_NODES = new Node[0];
+    private static final int[] NO_HASHES = new int[0];
+
+    private final boolean shared;
+    private Node[] keys;
+    // hash of each key, compared before the key itself so that misses rarely touch the keys
+    private int[] hashes;
+    private int size;
+    private int[] index = null;
+    private Map<Object, NodeShape> transitions = null;
+
+    private NodeShape(boolean shared, Node[] keys, int[] hashes, int size) {
+        this.shared = shared;
+        this.keys = keys;
+        this.hashes = hashes;
+        this.size = size;
+        if (size > SCAN_LIMIT) {
+            reindex();
+        }
+    }
+
+    /**
+     * A new, empty shape shared through its transitions
+     */
+    static NodeShape root() {
+        return new NodeShape(true, NO_NODES, NO_HASHES, 0);
+    }
+
+    /**
+     * A new, empty shape owned by a single object
+     */
+    static NodeShape unshared() {
+        return new NodeShape(false, NO_NODES, NO_HASHES, 0);
+    }
+
+    boolean isShared() {
+        return shared;
+    }
+
+    int size() {
+        return size;
+    }
+
+    Node key(int position) {
+        return keys[position];
+    }
+
+    /**
+     * Position of the key holding the given raw value, or -1
+     */
+    int find(Object raw) {
+        int hash = raw.hashCode();
+        if (index == null) {
+            for (int i = 0; i < size; i++) {
+                if (hashes[i] == hash && keys[i].matches(raw)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        int mask = index.length - 1;
+        for (int slot = mix(hash) & mask; index[slot] != 0; slot = (slot + 1) & mask) {
+            int position = index[slot] - 1;
+            if (hashes[position] == hash && keys[position].matches(raw)) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * The shared shape holding these keys followed by the given one, or null if it would grow past the sharing
+     * limits. The key must not already be present.
+     */
+    NodeShape next(Node key) {
+        Object raw = key.get();
+        NodeShape next = transitions == null ? null : transitions.get(raw);
+        if (next == null) {
+            if (size >= MAX_SHARED_KEYS || (transitions != null && transitions.size() >= MAX_TRANSITIONS)) {
+                return null;
+            }
+            Node[] nextKeys = Arrays.copyOf(keys, size + 1);
+            nextKeys[size] = key;
+            int[] nextHashes = Arrays.copyOf(hashes, size + 1);
+            nextHashes[size] = key.hashCode();
+            next = new NodeShape(true, nextKeys, nextHashes, size + 1);
+            if (transitions == null) {
+                transitions = new HashMap<>(4);
+            }
+            transitions.put(raw, next);
+        }
+        return next;
+    }
+
+    /**
+     * An unshared copy of this shape
+     */
+    NodeShape copy() {
+        int capacity = Math.max(4, size + 1);
+        return new NodeShape(false, Arrays.copyOf(keys, capacity), Arrays.copyOf(hashes, capacity), size);
+    }
+
+    /**
+     * Appends a key to an unshared shape. The key must not already be present.
+     */
+    void add(Node key) {
+        if (size == keys.length) {
+            int capacity = Math.max(4, size * 2);
+            keys = Arrays.copyOf(keys, capacity);
+            hashes = Arrays.copyOf(hashes, capacity);
+        }
+        hashes[size] = key.hashCode();
+        keys[size++] = key;
+        if (size > SCAN_LIMIT) {
+            if (index == null || size * 2 > index.length) {
+                reindex();
+            } else {
+                insert(size - 1);
+            }
+        }
+    }
+
+    /**
+     * Drops any spare capacity from an unshared shape
+     */
+    void trim() {
+        if (keys.length != size) {
+            keys = Arrays.copyOf(keys, size);
+            hashes = Arrays.copyOf(hashes, size);
+        }
+    }
+
+    /**
+     * Removes a key from an unshared shape
+     */
+    void remove(int position) {
+        size--;
+        System.arraycopy(keys, position + 1, keys, position, size - position);
+        System.arraycopy(hashes, position + 1, hashes, position, size - position);
+        keys[size] = null;
+        reindex();
+    }
+
+    private void reindex() {
+        if (size <= SCAN_LIMIT) {
+            index = null;
+            return;
+        }
+        index = new int[Integer.highestOneBit(size * 4 - 1)];
+        for (int i = 0; i < size; i++) {
+            insert(i);
+        }
+    }
+
+    private void insert(int position) {
+        int mask = index.length - 1;
+        int slot = mix(hashes[position]) & mask;
+        while (index[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        index[slot] = position + 1;
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
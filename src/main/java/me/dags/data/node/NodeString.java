@@ -0,0 +1,47 @@
+package me.dags.data.node;
+
+/**
+ * @author dags <dags@dags.me>
+ */
+public class NodeString extends Node {
+
+    private final String value;
+
+    NodeString(String value) {
+        super(null);
+        this.value = value;
+    }
+
+    @Override
+    Object get() {
+        return value;
+    }
+
+    @Override
+    public String asString() {
+        return value;
+    }
+
+    @Override
+    boolean matches(Object raw) {
+        return value.equals(raw);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (other instanceof NodeString) {
+            return ((NodeString) other).value.equals(value);
+        }
+        return super.equals(other);
+    }
+
+    @Override
+    public int hashCode() {
+        return value.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return value;
+    }
+}
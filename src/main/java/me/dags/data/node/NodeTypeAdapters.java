@@ -1,23 +1,91 @@
 package me.dags.data.node;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author dags <dags@dags.me>
  */
 public class NodeTypeAdapters {
 
-    private static final Map<Class<?>, Entry<?>> map = new HashMap<>();
+    private static final NodeTypeAdapter<?> NONE = new NodeTypeAdapter<Object>() {
+        @Override
+        public Node toNode(Object o) {
+            return Node.NULL;
+        }
+
+        @Override
+        public Object fromNode(Node node) {
+            return null;
+        }
+    };
 
+    private static final Map<Class<?>, NodeTypeAdapter<?>> adapters = new ConcurrentHashMap<>();
+    private static volatile ClassValue<NodeTypeAdapter<?>> resolved = newCache();
+
+    /**
+     * Registers the adapter for the type and, through {@link #resolve(Class)}, for its subclasses and
+     * implementations that don't have adapters of their own. Safe to call while other threads are serializing.
+     */
     public static <T> void register(Class<T> type, NodeTypeAdapter<T> nodeSerializer) {
-        map.put(type, new Entry<>(type, nodeSerializer));
+        adapters.put(type, nodeSerializer);
+        // drop every resolution made so far, as any of them may now resolve to the new adapter
+        resolved = newCache();
     }
 
+    /**
+     * The adapter registered for exactly the class, or null
+     */
     @SuppressWarnings("unchecked")
     public static <T> NodeTypeAdapter<T> of(Class<T> clazz) {
-        Entry<?> entry = map.get(clazz);
-        if (entry != null && entry.type.equals(clazz)) {
-            return ((Entry<T>) entry).nodeSerializer;
+        return (NodeTypeAdapter<T>) adapters.get(clazz);
+    }
+
+    /**
+     * Finds the adapter registered for the class, or else for its nearest superclass, or else for the first
+     * interface found walking up from the class, or null. Lookups after the first for a given class are cached.
+     * An adapter found for a supertype can serialize the class, but its fromNode() returns that supertype.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> NodeTypeAdapter<? super T> resolve(Class<T> clazz) {
+        NodeTypeAdapter<?> adapter = resolved.get(clazz);
+        return adapter == NONE ? null : (NodeTypeAdapter<? super T>) adapter;
+    }
+
+    private static ClassValue<NodeTypeAdapter<?>> newCache() {
+        return new ClassValue<NodeTypeAdapter<?>>() {
+            @Override
+            protected NodeTypeAdapter<?> computeValue(Class<?> type) {
+                NodeTypeAdapter<?> adapter = find(type);
+                return adapter == null ? NONE : adapter;
+            }
+        };
+    }
+
+    private static NodeTypeAdapter<?> find(Class<?> type) {
+        if (adapters.isEmpty()) {
+            return null;
+        }
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            NodeTypeAdapter<?> adapter = adapters.get(c);
+            if (adapter != null) {
+                return adapter;
+            }
+        }
+        Deque<Class<?>> queue = new ArrayDeque<>();
+        Set<Class<?>> visited = new HashSet<>();
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            queue.addAll(Arrays.asList(c.getInterfaces()));
+        }
+        while (!queue.isEmpty()) {
+            Class<?> next = queue.poll();
+            if (visited.add(next)) {
+                NodeTypeAdapter<?> adapter = adapters.get(next);
+                if (adapter != null) {
+                    return adapter;
+                }
+                queue.addAll(Arrays.asList(next.getInterfaces()));
+            }
         }
         return null;
     }
@@ -46,7 +114,7 @@ public class NodeTypeAdapters {
 
     @SuppressWarnings({ "unchecked", "rawtypes" })
     public static Node serialize(Object object) {
-        NodeTypeAdapter serializer = NodeTypeAdapters.of(object.getClass());
+        NodeTypeAdapter serializer = NodeTypeAdapters.resolve(object.getClass());
         if (serializer != null) {
             return serializer.toNode(object);
         }
@@ -59,6 +127,18 @@ public class NodeTypeAdapters {
         if (object instanceof Object[]) {
             return serialize((Object[]) object);
         }
+        if (object instanceof String) {
+            return new NodeString((String) object);
+        }
+        if (object instanceof Long) {
+            return new NodeLong((Long) object);
+        }
+        if (object instanceof Double) {
+            return new NodeDouble((Double) object);
+        }
+        if (object instanceof Boolean) {
+            return (Boolean) object ? Node.TRUE : Node.FALSE;
+        }
         return new Node(object);
     }
 
@@ -93,15 +173,4 @@ public class NodeTypeAdapters {
         }
         return list;
     }
-
-    private static class Entry<T> {
-
-        private final Class<T> type;
-        private final NodeTypeAdapter<T> nodeSerializer;
-
-        private Entry(Class<T> type, NodeTypeAdapter<T> nodeSerializer) {
-            this.type = type;
-            this.nodeSerializer = nodeSerializer;
-        }
-    }
 }
@@ -2,28 +2,240 @@ package me.dags.data.node;
 
 import me.dags.data.StringUtils;
 
-import java.io.*;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.Map;
 
 public abstract class NodeWriter implements Closeable {
 
-    private final Writer writer;
+    private static final int OBJECT = 0;
+    private static final int ARRAY = 1;
+    private static final int INLINE_ARRAY = 2;
+    private static final int ROOT_OBJECT = 3;
+
+    private static final int BEGIN_OBJECT = 0;
+    private static final int END_OBJECT = 1;
+    private static final int BEGIN_ARRAY = 2;
+    private static final int END_ARRAY = 3;
+    private static final int ELEMENT_SEPARATOR = 4;
+    private static final int PADDING = 5;
+    private static final int LINE_BREAK = 6;
+
+    private static final int BUFFER_SIZE = 16384;
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int pos = 0;
+    private char highSurrogate = 0;
+
+    private final char[][] tokens = new char[7][];
+    private char[][] indentCache = new char[8][];
     private int indents = 0;
 
+    private int[] frames = new int[16];
+    private int[] counts = new int[16];
+    private Node[] previous = new Node[16];
+    private int depth = 0;
+    private Node pendingKey = null;
+
     protected NodeWriter(OutputStream outputStream) {
-        this.writer = new OutputStreamWriter(outputStream, StringUtils.UTF_8);
+        this.out = outputStream;
     }
 
     @Override
     public void close() throws IOException {
-        writer.flush();
-        writer.close();
+        dropSurrogate();
+        flushBuffer();
+        out.flush();
+        out.close();
     }
 
     public final String write(Node node) throws IOException {
         writeRoot(node);
-        return writer.toString();
+        dropSurrogate();
+        flushBuffer();
+        return out.toString();
+    }
+
+    /**
+     * Opens an object as the root, the value of the pending key, or the next element of the enclosing array.
+     * Together with {@link #key(Object)}, {@link #value(Object)} and the close methods this writes a document
+     * incrementally without building a Node tree first.
+     */
+    public NodeWriter openObject() throws IOException {
+        if (depth == 0 && !bracesAroundRoot()) {
+            push(ROOT_OBJECT);
+            return this;
+        }
+        beginValue(NodeObject.EMPTY);
+        appendToken(BEGIN_OBJECT);
+        push(OBJECT);
+        return this;
+    }
+
+    public NodeWriter closeObject() throws IOException {
+        int frame = pop(OBJECT, ROOT_OBJECT);
+        if (frame == OBJECT) {
+            if (counts[depth] > 0) {
+                decIndents();
+                appendToken(LINE_BREAK);
+                appendIndent();
+            }
+            appendToken(END_OBJECT);
+        }
+        return this;
+    }
+
+    public NodeWriter openArray() throws IOException {
+        beginValue(NodeArray.EMPTY);
+        appendToken(BEGIN_ARRAY);
+        push(ARRAY);
+        return this;
+    }
+
+    public NodeWriter closeArray() throws IOException {
+        int frame = pop(ARRAY, INLINE_ARRAY);
+        if (frame == ARRAY && counts[depth] > 0) {
+            decIndents();
+            appendToken(LINE_BREAK);
+            appendIndent();
+        }
+        appendToken(END_ARRAY);
+        return this;
+    }
+
+    /**
+     * Writes the key of the next entry in the currently open object. The key is held back until its value
+     * is written so that the key separator can be chosen for that value.
+     */
+    public NodeWriter key(Object key) throws IOException {
+        return beginKey(Node.of(key));
+    }
+
+    public NodeWriter key(String key) throws IOException {
+        return beginKey(key == null ? Node.NULL : new NodeString(key));
+    }
+
+    private NodeWriter beginKey(Node key) throws IOException {
+        if (depth == 0 || frames[depth - 1] == ARRAY || frames[depth - 1] == INLINE_ARRAY || pendingKey != null) {
+            throw new NodeError("Attempted to write a key outside of an object entry!");
+        }
+        int frame = frames[depth - 1];
+        if (counts[depth - 1] > 0) {
+            appendToken(ELEMENT_SEPARATOR);
+            appendToken(LINE_BREAK);
+        } else if (frame == OBJECT) {
+            appendToken(LINE_BREAK);
+            incIndents();
+        }
+        counts[depth - 1]++;
+        appendIndent();
+        pendingKey = key;
+        return this;
+    }
+
+    /**
+     * Writes a complete value, which may be a whole Node tree, as the root, the value of the pending key,
+     * or the next element of the enclosing array
+     */
+    public NodeWriter value(Object value) throws IOException {
+        Node node = Node.of(value);
+        if (depth == 0) {
+            writeRoot(node);
+        } else {
+            beginValue(node);
+            writeNode(node);
+        }
+        return this;
+    }
+
+    public NodeWriter value(String value) throws IOException {
+        return value(value == null ? Node.NULL : new NodeString(value));
+    }
+
+    public NodeWriter value(long value) throws IOException {
+        return value(new NodeLong(value));
+    }
+
+    public NodeWriter value(double value) throws IOException {
+        return value(new NodeDouble(value));
+    }
+
+    public NodeWriter value(boolean value) throws IOException {
+        return value(value ? Node.TRUE : Node.FALSE);
+    }
+
+    public void flush() throws IOException {
+        dropSurrogate();
+        flushBuffer();
+        out.flush();
+    }
+
+    protected boolean bracesAroundRoot() {
+        return true;
+    }
+
+    protected boolean inlinePrimitiveArrays() {
+        return true;
+    }
+
+    private void beginValue(Node value) throws IOException {
+        if (depth == 0) {
+            return;
+        }
+        int frame = frames[depth - 1];
+        if (frame == OBJECT || frame == ROOT_OBJECT) {
+            if (pendingKey == null) {
+                throw new NodeError("Attempted to write an object value without a key!");
+            }
+            writeNode(pendingKey);
+            append(keySeparator(pendingKey, value));
+            appendToken(PADDING);
+            pendingKey = null;
+            return;
+        }
+        int count = counts[depth - 1]++;
+        if (count == 0) {
+            if (value.isPrimitive() && inlinePrimitiveArrays()) {
+                frames[depth - 1] = INLINE_ARRAY;
+            } else {
+                appendToken(LINE_BREAK);
+                incIndents();
+            }
+        } else if (frame == INLINE_ARRAY) {
+            append(arraySeparator(previous[depth - 1]));
+            appendToken(PADDING);
+        } else {
+            append(arraySeparator(previous[depth - 1]));
+            appendToken(LINE_BREAK);
+        }
+        if (frames[depth - 1] == ARRAY) {
+            appendIndent();
+        }
+        previous[depth - 1] = value;
+    }
+
+    private void push(int frame) {
+        if (depth >= frames.length) {
+            frames = Arrays.copyOf(frames, depth * 2);
+            counts = Arrays.copyOf(counts, depth * 2);
+            previous = Arrays.copyOf(previous, depth * 2);
+        }
+        frames[depth] = frame;
+        counts[depth] = 0;
+        previous[depth] = null;
+        depth++;
+    }
+
+    private int pop(int type, int alt) {
+        if (depth == 0 || (frames[depth - 1] != type && frames[depth - 1] != alt) || pendingKey != null) {
+            throw new NodeError("Attempted to close a " + (type == OBJECT ? "NodeObject" : "NodeArray") + " that is not open!");
+        }
+        previous[--depth] = null;
+        return frames[depth];
     }
 
     protected void writeRoot(Node node) throws IOException {
@@ -49,13 +261,13 @@ public abstract class NodeWriter implements Closeable {
     }
 
     protected void writeEmptyObject() throws IOException {
-        append(beginObject());
-        append(endObject());
+        appendToken(BEGIN_OBJECT);
+        appendToken(END_OBJECT);
     }
 
     protected void writeObjectEntries(NodeObject node) throws IOException {
-        append(beginObject());
-        append(lineBreak());
+        appendToken(BEGIN_OBJECT);
+        appendToken(LINE_BREAK);
         incIndents();
         Iterator<Map.Entry<Node, Node>> iterator = node.entries().iterator();
         while (iterator.hasNext()) {
@@ -63,27 +275,27 @@ public abstract class NodeWriter implements Closeable {
             appendIndent();
             writeKeyValuePair(entry.getKey(), entry.getValue());
             if (iterator.hasNext()) {
-                append(elementSeparator());
-                append(lineBreak());
+                appendToken(ELEMENT_SEPARATOR);
+                appendToken(LINE_BREAK);
             }
         }
         decIndents();
-        append(lineBreak());
+        appendToken(LINE_BREAK);
         appendIndent();
-        append(endObject());
+        appendToken(END_OBJECT);
     }
 
     protected void writeKeyValuePair(Node key, Node value) throws IOException {
         writeNode(key);
         append(keySeparator(key, value));
-        append(padding());
+        appendToken(PADDING);
         writeNode(value);
     }
 
     protected void writeArray(NodeArray node) throws IOException {
         if (node.empty()) {
             writeEmptyArray();
-        } else if (node.primitiveList()) {
+        } else if (node.primitiveList() && inlinePrimitiveArrays()) {
             writePrimitiveArray(node);
         } else {
             writeComplexArray(node);
@@ -91,45 +303,89 @@ public abstract class NodeWriter implements Closeable {
     }
 
     protected void writeEmptyArray() throws IOException {
-        append(beginArray());
-        append(endArray());
+        appendToken(BEGIN_ARRAY);
+        appendToken(END_ARRAY);
     }
 
     protected void writePrimitiveArray(NodeArray node) throws IOException {
-        append(beginArray());
-        Iterator<Node> iterator = node.values().iterator();
-        while (iterator.hasNext()) {
-            Node element = iterator.next();
-            writeNode(element);
-            if (iterator.hasNext()) {
-                append(arraySeparator(element));
-                append(padding());
+        appendToken(BEGIN_ARRAY);
+        if (node.packedSize() >= 0) {
+            writePacked(node, false);
+        } else {
+            Iterator<Node> iterator = node.values().iterator();
+            while (iterator.hasNext()) {
+                Node element = iterator.next();
+                writeNode(element);
+                if (iterator.hasNext()) {
+                    append(arraySeparator(element));
+                    appendToken(PADDING);
+                }
             }
         }
-        append(endArray());
+        appendToken(END_ARRAY);
     }
 
     protected void writeComplexArray(NodeArray node) throws IOException {
-        append(beginArray());
-        append(lineBreak());
+        appendToken(BEGIN_ARRAY);
+        appendToken(LINE_BREAK);
         incIndents();
-        Iterator<Node> iterator = node.values().iterator();
-        while (iterator.hasNext()) {
-            Node element = iterator.next();
-            appendIndent();
-            writeNode(element);
-            if (iterator.hasNext()) {
-                append(arraySeparator(element));
-                append(lineBreak());
+        if (node.packedSize() >= 0) {
+            writePacked(node, true);
+        } else {
+            Iterator<Node> iterator = node.values().iterator();
+            while (iterator.hasNext()) {
+                Node element = iterator.next();
+                appendIndent();
+                writeNode(element);
+                if (iterator.hasNext()) {
+                    append(arraySeparator(element));
+                    appendToken(LINE_BREAK);
+                }
             }
         }
         decIndents();
-        append(lineBreak());
+        appendToken(LINE_BREAK);
         appendIndent();
-        append(endArray());
+        appendToken(END_ARRAY);
+    }
+
+    /**
+     * Writes the elements of a packed numeric array without creating a Node per element
+     */
+    private void writePacked(NodeArray node, boolean lines) throws IOException {
+        int size = node.packedSize();
+        long[] longs = node.packedLongs();
+        double[] doubles = node.packedDoubles();
+        String separator = arraySeparator(node.get(0));
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                append(separator);
+                appendToken(lines ? LINE_BREAK : PADDING);
+            }
+            if (lines) {
+                appendIndent();
+            }
+            if (longs != null) {
+                appendLong(longs[i]);
+            } else {
+                append(Double.toString(doubles[i]));
+            }
+        }
     }
 
     protected void writePrimitive(Node node) throws IOException {
+        if (node instanceof NodeString) {
+            writeString(node.asString());
+            return;
+        }
+        if (node instanceof NodeLong) {
+            appendLong(node.asLong());
+            return;
+        }
+        if (node instanceof NodeDouble || node instanceof NodeBoolean) {
+            append(node.asString());
+            return;
+        }
         Object value = node.asObject();
         if (value == null) {
             append("null");
@@ -141,16 +397,216 @@ public abstract class NodeWriter implements Closeable {
     }
 
     protected void writeString(String string) throws IOException {
-        append(StringUtils.escapeString(string));
+        appendEscaped(string, true);
     }
 
     protected final void append(String s) throws IOException {
-        writer.append(s);
+        for (int i = 0, length = s.length(); i < length; i++) {
+            append(s.charAt(i));
+        }
+    }
+
+    protected final void append(char[] chars) throws IOException {
+        for (char c : chars) {
+            append(c);
+        }
+    }
+
+    protected final void appendLong(long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            append(Long.toString(value));
+            return;
+        }
+        dropSurrogate();
+        if (pos > BUFFER_SIZE - 20) {
+            flushBuffer();
+        }
+        if (value < 0) {
+            buffer[pos++] = '-';
+            value = -value;
+        }
+        int end = pos + digits(value);
+        for (int i = end - 1; i >= pos; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        pos = end;
+    }
+
+    /**
+     * Appends a raw byte to the output buffer, for writers of binary formats
+     */
+    protected final void appendByte(int b) throws IOException {
+        dropSurrogate();
+        if (pos == BUFFER_SIZE) {
+            flushBuffer();
+        }
+        buffer[pos++] = (byte) b;
+    }
+
+    protected final void appendBytes(byte[] bytes, int offset, int length) throws IOException {
+        dropSurrogate();
+        if (length > BUFFER_SIZE - pos) {
+            flushBuffer();
+            if (length > BUFFER_SIZE) {
+                out.write(bytes, offset, length);
+                return;
+            }
+        }
+        System.arraycopy(bytes, offset, buffer, pos, length);
+        pos += length;
+    }
+
+    /**
+     * Encodes the char as UTF-8 into the output buffer, which is flushed to the underlying stream when full.
+     * A high surrogate is held until the char after it, and a surrogate without its other half is written
+     * as '?', as OutputStreamWriter does, rather than as bytes that aren't valid UTF-8.
+     */
+    protected final void append(char c) throws IOException {
+        if (pos > BUFFER_SIZE - 5) {
+            flushBuffer();
+        }
+        if (highSurrogate != 0 && !Character.isLowSurrogate(c)) {
+            highSurrogate = 0;
+            buffer[pos++] = '?';
+        }
+        if (c < 0x80) {
+            buffer[pos++] = (byte) c;
+        } else if (c < 0x800) {
+            buffer[pos++] = (byte) (0xC0 | (c >> 6));
+            buffer[pos++] = (byte) (0x80 | (c & 0x3F));
+        } else if (Character.isHighSurrogate(c)) {
+            highSurrogate = c;
+        } else if (Character.isLowSurrogate(c)) {
+            if (highSurrogate == 0) {
+                buffer[pos++] = '?';
+                return;
+            }
+            int codePoint = Character.toCodePoint(highSurrogate, c);
+            highSurrogate = 0;
+            buffer[pos++] = (byte) (0xF0 | (codePoint >> 18));
+            buffer[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+            buffer[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+            buffer[pos++] = (byte) (0x80 | (codePoint & 0x3F));
+        } else {
+            buffer[pos++] = (byte) (0xE0 | (c >> 12));
+            buffer[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            buffer[pos++] = (byte) (0x80 | (c & 0x3F));
+        }
+    }
+
+    /**
+     * Writes the string with json escapes applied. Non-ASCII chars are written as unicode escapes if
+     * escapeUnicode is true, otherwise as they are.
+     */
+    protected final void appendEscaped(String s, boolean escapeUnicode) throws IOException {
+        dropSurrogate();
+        for (int i = 0, length = s.length(); i < length; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                char[] escape = StringUtils.escape(c);
+                if (escape != null) {
+                    append(escape);
+                } else if (highSurrogate != 0 || pos == BUFFER_SIZE) {
+                    // after a high surrogate, or with the buffer full
+                    append(c);
+                } else {
+                    buffer[pos++] = (byte) c;
+                }
+            } else if (escapeUnicode) {
+                if (pos > BUFFER_SIZE - 6) {
+                    flushBuffer();
+                }
+                buffer[pos++] = '\\';
+                buffer[pos++] = 'u';
+                buffer[pos++] = (byte) StringUtils.hexDigit(c >> 12);
+                buffer[pos++] = (byte) StringUtils.hexDigit(c >> 8);
+                buffer[pos++] = (byte) StringUtils.hexDigit(c >> 4);
+                buffer[pos++] = (byte) StringUtils.hexDigit(c);
+            } else {
+                append(c);
+            }
+        }
     }
 
     protected final void appendIndent() throws IOException {
-        for (int i = indents; i > 0; i--) {
-            append(indent());
+        if (indents > 0) {
+            append(indent(indents));
+        }
+    }
+
+    /**
+     * Structural tokens come from the constant hooks (beginObject(), lineBreak() etc), which are read once,
+     * on first use
+     */
+    private void appendToken(int token) throws IOException {
+        char[] chars = tokens[token];
+        if (chars == null) {
+            chars = tokens[token] = token(token).toCharArray();
+        }
+        if (chars.length == 1) {
+            append(chars[0]);
+        } else {
+            append(chars);
+        }
+    }
+
+    private String token(int token) {
+        switch (token) {
+            case BEGIN_OBJECT:
+                return beginObject();
+            case END_OBJECT:
+                return endObject();
+            case BEGIN_ARRAY:
+                return beginArray();
+            case END_ARRAY:
+                return endArray();
+            case ELEMENT_SEPARATOR:
+                return elementSeparator();
+            case PADDING:
+                return padding();
+            default:
+                return lineBreak();
+        }
+    }
+
+    private char[] indent(int depth) {
+        if (depth >= indentCache.length) {
+            indentCache = Arrays.copyOf(indentCache, depth * 2);
+        }
+        char[] chars = indentCache[depth];
+        if (chars == null) {
+            StringBuilder builder = new StringBuilder();
+            for (int i = depth; i > 0; i--) {
+                builder.append(indent());
+            }
+            chars = indentCache[depth] = builder.toString().toCharArray();
+        }
+        return chars;
+    }
+
+    private static int digits(long value) {
+        int digits = 1;
+        for (long limit = 10; digits < 19 && value >= limit; limit *= 10) {
+            digits++;
+        }
+        return digits;
+    }
+
+    /**
+     * Writes a pending high surrogate, which no low surrogate followed, as '?'
+     */
+    private void dropSurrogate() throws IOException {
+        if (highSurrogate != 0) {
+            highSurrogate = 0;
+            appendByte('?');
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        if (pos > 0) {
+            out.write(buffer, 0, pos);
+            pos = 0;
         }
     }
 
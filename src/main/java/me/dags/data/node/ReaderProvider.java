@@ -1,17 +1,48 @@
 package me.dags.data.node;
 
+import me.dags.data.binary.BinaryReader;
 import me.dags.data.hocon.HoconReader;
+import me.dags.data.json.JsonByteReader;
 import me.dags.data.json.JsonReader;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 public abstract class ReaderProvider {
 
     public static final ReaderProvider JSON = new Json();
+    public static final ReaderProvider JSON_BYTES = new JsonBytes(false);
+    public static final ReaderProvider JSON_LAZY = new JsonBytes(true);
     public static final ReaderProvider HOCON = new Hocon();
+    public static final ReaderProvider BINARY = new Binary();
 
     public abstract NodeReader get(InputStream inputStream);
 
+    /**
+     * Provides a reader for input that is already held in memory, from the buffer's position to its limit
+     */
+    public NodeReader get(ByteBuffer buffer) {
+        return get(new ByteBufferInputStream(buffer));
+    }
+
+    private static class Binary extends ReaderProvider {
+
+        @Override
+        public NodeReader get(InputStream inputStream) {
+            return new BinaryReader(inputStream);
+        }
+
+        @Override
+        public NodeReader get(ByteBuffer buffer) {
+            if (buffer.hasArray()) {
+                return new BinaryReader(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            }
+            return super.get(buffer);
+        }
+    }
+
     private static class Hocon extends ReaderProvider {
 
         @Override
@@ -26,5 +57,68 @@ public abstract class ReaderProvider {
         public NodeReader get(InputStream inputStream) {
             return new JsonReader(inputStream);
         }
+
+        @Override
+        public NodeReader get(ByteBuffer buffer) {
+            return new JsonByteReader(buffer);
+        }
+    }
+
+    private static class JsonBytes extends ReaderProvider {
+
+        private final boolean lazy;
+
+        private JsonBytes(boolean lazy) {
+            this.lazy = lazy;
+        }
+
+        @Override
+        public NodeReader get(InputStream inputStream) {
+            try (InputStream in = inputStream) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(in.available(), 8192));
+                byte[] block = new byte[8192];
+                int read;
+                while ((read = in.read(block)) != -1) {
+                    out.write(block, 0, read);
+                }
+                return new JsonByteReader(ByteBuffer.wrap(out.toByteArray()), lazy);
+            } catch (IOException e) {
+                throw new NodeError("Unable to read input: " + e.getMessage());
+            }
+        }
+
+        @Override
+        public NodeReader get(ByteBuffer buffer) {
+            return new JsonByteReader(buffer, lazy);
+        }
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer.duplicate();
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            len = Math.min(len, buffer.remaining());
+            buffer.get(b, off, len);
+            return len;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
     }
 }
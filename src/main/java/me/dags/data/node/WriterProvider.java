@@ -1,5 +1,6 @@
 package me.dags.data.node;
 
+import me.dags.data.binary.BinaryWriter;
 import me.dags.data.hocon.HoconWriter;
 import me.dags.data.json.JsonWriter;
 
@@ -7,13 +8,24 @@ import java.io.OutputStream;
 
 public abstract class WriterProvider {
 
-    public static final WriterProvider JSON_PRETTY = new Json(false);
-    public static final WriterProvider JSON_COMPACT = new Json(true);
+    public static final WriterProvider JSON_PRETTY = new Json(false, true);
+    public static final WriterProvider JSON_COMPACT = new Json(true, true);
+    public static final WriterProvider JSON_PRETTY_UTF8 = new Json(false, false);
+    public static final WriterProvider JSON_COMPACT_UTF8 = new Json(true, false);
     public static final WriterProvider HOCON_PRETTY = new Hocon(false);
     public static final WriterProvider HOCON_COMAPCT = new Hocon(true);
+    public static final WriterProvider BINARY = new Binary();
 
     public abstract NodeWriter get(OutputStream writer);
 
+    static class Binary extends WriterProvider {
+
+        @Override
+        public NodeWriter get(OutputStream out) {
+            return new BinaryWriter(out);
+        }
+    }
+
     static class Hocon extends WriterProvider {
 
         private final boolean compact;
@@ -31,14 +43,16 @@ public abstract class WriterProvider {
     static class Json extends WriterProvider {
 
         private final boolean compact;
+        private final boolean escapeUnicode;
 
-        Json(boolean compact) {
+        Json(boolean compact, boolean escapeUnicode) {
             this.compact = compact;
+            this.escapeUnicode = escapeUnicode;
         }
 
         @Override
         public NodeWriter get(OutputStream out) {
-            return new JsonWriter(out, compact);
+            return new JsonWriter(out, compact, escapeUnicode);
         }
     }
 }
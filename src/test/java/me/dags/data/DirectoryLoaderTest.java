@@ -0,0 +1,118 @@
+package me.dags.data;
+
+import me.dags.data.node.Node;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class DirectoryLoaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path root;
+
+    @Before
+    public void setup() throws IOException {
+        root = folder.getRoot().toPath();
+        write("a.json", "{\"name\":\"a\"}");
+        write("b.json", "{\"name\":\"b\"}");
+        write("notes.txt", "not json");
+        write("sub/c.json", "{\"name\":\"c\"}");
+        write("sub/bad.json", "{\"name\":");
+        write("sub/deep/d.json", "{\"name\":\"d\"}");
+    }
+
+    private void write(String name, String content) throws IOException {
+        Path path = root.resolve(name);
+        Files.createDirectories(path.getParent());
+        Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static DirectoryLoader.Builder loader() {
+        return DirectoryLoader.builder(NodeAdapter.json());
+    }
+
+    private List<String> names(List<Path> paths) {
+        return paths.stream().map(path -> root.relativize(path).toString().replace('\\', '/')).collect(Collectors.toList());
+    }
+
+    @Test
+    public void recursiveAndFlatWalks() throws IOException {
+        assertEquals(Arrays.asList("a.json", "b.json", "notes.txt", "sub/bad.json", "sub/c.json", "sub/deep/d.json"),
+                names(loader().ordered().build().list(root)));
+        assertEquals(Arrays.asList("a.json", "b.json", "notes.txt"),
+                names(loader().ordered().recursive(false).build().list(root)));
+    }
+
+    @Test
+    public void globsMatchNamesOrRelativePaths() throws IOException {
+        assertEquals(Arrays.asList("a.json", "b.json", "sub/bad.json", "sub/c.json", "sub/deep/d.json"),
+                names(loader().ordered().glob("*.json").build().list(root)));
+        assertEquals(Arrays.asList("a.json", "b.json"),
+                names(loader().ordered().glob("*.json").recursive(false).build().list(root)));
+        assertEquals(Arrays.asList("sub/bad.json", "sub/c.json"),
+                names(loader().ordered().glob("sub/*.json").build().list(root)));
+        assertEquals(Collections.singletonList("sub/deep/d.json"),
+                names(loader().ordered().glob("**/d.json").build().list(root)));
+        assertEquals(Collections.emptyList(), names(loader().glob("d.json/x").build().list(root)));
+    }
+
+    @Test
+    public void failuresAreReportedAlongsideTheOtherFiles() {
+        for (int parallelism : new int[]{1, 4}) {
+            List<DirectoryLoader.Result> results = loader().glob("*.json").parallelism(parallelism).build().load(root);
+            assertEquals(5, results.size());
+            Map<String, DirectoryLoader.Result> byName = new HashMap<>();
+            for (DirectoryLoader.Result result : results) {
+                byName.put(result.path().getFileName().toString(), result);
+            }
+            DirectoryLoader.Result bad = byName.get("bad.json");
+            assertFalse(bad.succeeded());
+            assertNotNull(bad.error());
+            assertSame(Node.NULL, bad.node());
+            for (String name : new String[]{"a.json", "b.json", "c.json", "d.json"}) {
+                DirectoryLoader.Result result = byName.get(name);
+                assertTrue(result.toString(), result.succeeded());
+                assertEquals(name.substring(0, 1), result.node().asNodeObject().get("name").asString());
+            }
+        }
+    }
+
+    @Test
+    public void orderedResultsFollowPathOrder() throws IOException {
+        for (int i = 0; i < 40; i++) {
+            write(String.format("many/%02d.json", 39 - i), "[" + i + "]");
+        }
+        Path many = root.resolve("many");
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            expected.add(String.format("many/%02d.json", i));
+        }
+        List<DirectoryLoader.Result> results = loader().ordered().parallelism(4).build().load(many);
+        assertEquals(expected, names(results.stream().map(DirectoryLoader.Result::path).collect(Collectors.toList())));
+        assertTrue(results.stream().allMatch(DirectoryLoader.Result::succeeded));
+        assertEquals(39L, results.get(0).node().asNodeArray().get(0).asLong());
+    }
+
+    @Test
+    public void aMissingDirectoryGivesOneFailedResult() {
+        for (Path path : new Path[]{root.resolve("a.json"), root.resolve("missing")}) {
+            List<DirectoryLoader.Result> results = loader().build().load(path);
+            assertEquals(1, results.size());
+            assertEquals(path, results.get(0).path());
+            assertTrue(results.get(0).error() instanceof IOException);
+            assertThrows(IOException.class, () -> loader().build().list(path));
+        }
+    }
+}
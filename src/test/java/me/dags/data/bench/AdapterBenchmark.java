@@ -0,0 +1,79 @@
+package me.dags.data.bench;
+
+import me.dags.data.node.Node;
+import me.dags.data.node.NodeObject;
+import me.dags.data.node.NodeTypeAdapter;
+import me.dags.data.node.NodeTypeAdapters;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolves and applies registered NodeTypeAdapters
+ *
+ * @author dags <dags@dags.me>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AdapterBenchmark {
+
+    public static class Point {
+
+        final int x, y;
+
+        Point(int x, int y) {
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    private List<Object> values;
+
+    @Setup
+    public void setup() {
+        NodeTypeAdapters.register(Point.class, new NodeTypeAdapter<Point>() {
+            @Override
+            public Node toNode(Point point) {
+                NodeObject object = new NodeObject();
+                object.put("x", point.x);
+                object.put("y", point.y);
+                return object;
+            }
+
+            @Override
+            public Point fromNode(Node node) {
+                NodeObject object = node.asNodeObject();
+                return new Point(object.get("x").asNumber().intValue(), object.get("y").asNumber().intValue());
+            }
+        });
+        values = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            values.add(new Point(i, -i));
+            values.add("value" + i);
+            values.add(i);
+            values.add(Arrays.asList(i, i + 1));
+        }
+    }
+
+    @Benchmark
+    public Object ofRegistered() {
+        return NodeTypeAdapters.of(Point.class);
+    }
+
+    @Benchmark
+    public Object ofUnregistered() {
+        return NodeTypeAdapters.of(String.class);
+    }
+
+    @Benchmark
+    public Node serializeMixed() {
+        return NodeTypeAdapters.serialize(values);
+    }
+}
@@ -0,0 +1,70 @@
+package me.dags.data.bench;
+
+import me.dags.data.NodeAdapter;
+import me.dags.data.node.Node;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes and reads a document of records as compact json and as binary
+ *
+ * @author dags <dags@dags.me>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BinaryBenchmark {
+
+    @Param({"20000"})
+    public int records;
+
+    private final NodeAdapter json = NodeAdapter.jsonCompact();
+    private final NodeAdapter binary = NodeAdapter.binary();
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(16 * 1024 * 1024);
+    private Node document;
+    private byte[] jsonBytes;
+    private byte[] binaryBytes;
+
+    @Setup
+    public void setup() {
+        document = json.from(Documents.records(records));
+        jsonBytes = write(json);
+        binaryBytes = write(binary);
+    }
+
+    private byte[] write(NodeAdapter adapter) {
+        out.reset();
+        adapter.to(document, out);
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public int writeJson() {
+        out.reset();
+        json.to(document, out);
+        return out.size();
+    }
+
+    @Benchmark
+    public int writeBinary() {
+        out.reset();
+        binary.to(document, out);
+        return out.size();
+    }
+
+    @Benchmark
+    public Node readJson() {
+        return json.from(new ByteArrayInputStream(jsonBytes));
+    }
+
+    @Benchmark
+    public Node readBinary() {
+        return binary.from(new ByteArrayInputStream(binaryBytes));
+    }
+}
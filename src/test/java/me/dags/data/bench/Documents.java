@@ -0,0 +1,69 @@
+package me.dags.data.bench;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Deterministic json documents for the benchmarks, so that results can be compared between runs and between
+ * commits. The benchmarks only use API that predates them, so they can be copied onto an earlier commit to
+ * measure the code before a change.
+ *
+ * @author dags <dags@dags.me>
+ */
+final class Documents {
+
+    private Documents() {
+    }
+
+    /**
+     * An array of records mixing strings, whole numbers, decimals, booleans, a nested object and a small array
+     */
+    static String records(int count) {
+        Random random = new Random(count);
+        StringBuilder builder = new StringBuilder(count * 200).append('[');
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append("{\"id\":").append(i)
+                    .append(",\"name\":\"user_").append(i).append('"')
+                    .append(",\"email\":\"u").append(i).append("@example.com\"")
+                    .append(",\"score\":").append(random.nextDouble() * 100)
+                    .append(",\"active\":").append(random.nextBoolean())
+                    .append(",\"tags\":[\"a\",\"b\",\"c\"]")
+                    .append(",\"meta\":{\"x\":").append(random.nextInt(1000))
+                    .append(",\"y\":").append(random.nextInt(1000))
+                    .append(",\"label\":\"point ").append(i % 50).append("\"}}");
+        }
+        return builder.append(']').toString();
+    }
+
+    /**
+     * An array of long strings, one in four of which holds escapes or non-ASCII characters
+     */
+    static String strings(int count) {
+        StringBuilder builder = new StringBuilder(count * 80).append('[');
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append("\"some fairly ordinary text for entry number ").append(i);
+            switch (i % 4) {
+                case 0:
+                    builder.append(" with \\\"quotes\\\", a \\\\ backslash and a\\nline break");
+                    break;
+                case 1:
+                    builder.append(" with unicode escapes \\u00e9\\u00e8 and café");
+                    break;
+                default:
+                    builder.append(" and nothing special about it at all");
+            }
+            builder.append('"');
+        }
+        return builder.append(']').toString();
+    }
+
+    static byte[] bytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,64 @@
+package me.dags.data.bench;
+
+import me.dags.data.node.Node;
+import me.dags.data.node.NodeObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Looks up keys on a NodeObject by String, hitting and missing
+ *
+ * @author dags <dags@dags.me>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LookupBenchmark {
+
+    @Param({"8", "64"})
+    public int keys;
+
+    private NodeObject object;
+    private String[] hits;
+
+    @Setup
+    public void setup() {
+        object = new NodeObject();
+        hits = new String[keys];
+        for (int i = 0; i < keys; i++) {
+            // a fresh String per lookup key, so equality can't short-cut on identity
+            hits[i] = new String("key" + i);
+            object.put("key" + i, i % 2 == 0 ? new NodeObject() : i);
+        }
+    }
+
+    @Benchmark
+    public int getHit() {
+        int found = 0;
+        for (String key : hits) {
+            if (object.get(key).isPresent()) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    public Node getMiss() {
+        return object.get("missing");
+    }
+
+    @Benchmark
+    public boolean contains() {
+        return object.contains("key1") && !object.contains("missing");
+    }
+
+    @Benchmark
+    public NodeObject getObject() {
+        return object.getObject("key0");
+    }
+}
@@ -0,0 +1,39 @@
+package me.dags.data.bench;
+
+import me.dags.data.NodeAdapter;
+import me.dags.data.node.Node;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses a document of records through the InputStream reader, which reads its input in blocks and scans
+ * tokens by index within them
+ *
+ * @author dags <dags@dags.me>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReaderBenchmark {
+
+    @Param({"20000"})
+    public int records;
+
+    private final NodeAdapter json = NodeAdapter.json();
+    private byte[] document;
+
+    @Setup
+    public void setup() {
+        document = Documents.bytes(Documents.records(records));
+    }
+
+    @Benchmark
+    public Node readStream() {
+        return json.from(new ByteArrayInputStream(document));
+    }
+}
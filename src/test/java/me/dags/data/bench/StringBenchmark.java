@@ -0,0 +1,56 @@
+package me.dags.data.bench;
+
+import me.dags.data.NodeAdapter;
+import me.dags.data.node.Node;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses a document made up of long strings, a quarter of which hold escapes or non-ASCII characters, with and
+ * without reading each string's value afterwards
+ *
+ * @author dags <dags@dags.me>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StringBenchmark {
+
+    @Param({"50000"})
+    public int strings;
+
+    private final NodeAdapter json = NodeAdapter.json();
+    private String text;
+    private byte[] document;
+
+    @Setup
+    public void setup() {
+        text = Documents.strings(strings);
+        document = Documents.bytes(text);
+    }
+
+    @Benchmark
+    public Node readStream() {
+        return json.from(new ByteArrayInputStream(document));
+    }
+
+    @Benchmark
+    public Node readString() {
+        return json.from(text);
+    }
+
+    // reads every decoded value too, which is where escapes used to be decoded
+    @Benchmark
+    public long readAndDecode() {
+        long length = 0;
+        for (Node node : json.from(text).asNodeArray().values()) {
+            length += node.asString().length();
+        }
+        return length;
+    }
+}
@@ -0,0 +1,49 @@
+package me.dags.data.bench;
+
+import me.dags.data.NodeAdapter;
+import me.dags.data.node.Node;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes a document of records to a stream, pretty printed and compact
+ *
+ * @author dags <dags@dags.me>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WriterBenchmark {
+
+    @Param({"20000"})
+    public int records;
+
+    private final NodeAdapter pretty = NodeAdapter.json();
+    private final NodeAdapter compact = NodeAdapter.jsonCompact();
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(16 * 1024 * 1024);
+    private Node document;
+
+    @Setup
+    public void setup() {
+        document = pretty.from(Documents.records(records));
+    }
+
+    @Benchmark
+    public int writePretty() {
+        out.reset();
+        pretty.to(document, out);
+        return out.size();
+    }
+
+    @Benchmark
+    public int writeCompact() {
+        out.reset();
+        compact.to(document, out);
+        return out.size();
+    }
+}
@@ -0,0 +1,119 @@
+package me.dags.data.binary;
+
+import me.dags.data.NodeAdapter;
+import me.dags.data.node.*;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class BinaryFormatTest {
+
+    static final String DOCUMENT = "{\"id\":-42,\"name\":\"n\\u00e9e \\\"q\\\" \\ud83d\\ude00\",\"ok\":true,\"none\":null,"
+            + "\"ratio\":0.1,\"big\":123456789012345678901234567890,\"precise\":1.00000000000000000000001,"
+            + "\"longs\":[1,-2,3000000000],\"doubles\":[1.5,-2.25],\"mixed\":[1,\"two\",[3],{}],"
+            + "\"empty\":{},\"none2\":[],\"nested\":{\"a\":{\"b\":[{\"c\":\"d\"}]}}}";
+
+    private static final NodeAdapter BINARY = NodeAdapter.binary();
+
+    static byte[] write(Node node) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BINARY.to(node, out);
+        return out.toByteArray();
+    }
+
+    static Node read(byte[] bytes) {
+        return BINARY.from(new ByteArrayInputStream(bytes));
+    }
+
+    @Test
+    public void documentsRoundTrip() {
+        Node node = NodeAdapter.json().from(DOCUMENT);
+        Node copy = read(write(node));
+        assertEquals(node, copy);
+        assertEquals(NodeAdapter.jsonCompact().to(node), NodeAdapter.jsonCompact().to(copy));
+        assertTrue(copy.asNodeObject().getArray("longs").isPackedLongs());
+        assertTrue(copy.asNodeObject().getArray("doubles").isPackedDoubles());
+    }
+
+    @Test
+    public void scalarRootsRoundTrip() {
+        for (Node node : new Node[]{Node.of("text"), Node.of(7L), Node.of(2.5), Node.TRUE, Node.FALSE}) {
+            assertEquals(node, read(write(node)));
+        }
+    }
+
+    @Test
+    public void streamedDocumentsReadBackEqual() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (NodeWriter writer = BINARY.writer(out)) {
+            writer.openObject();
+            writer.key("a").value(1L);
+            writer.key("b").openArray().value("x").value(2.5).value(false).closeArray();
+            writer.key("c").openObject().key("d").value((Object) null).closeObject();
+            writer.closeObject();
+        }
+        assertEquals(NodeAdapter.json().from("{\"a\":1,\"b\":[\"x\",2.5,false],\"c\":{\"d\":null}}"), read(out.toByteArray()));
+    }
+
+    @Test
+    public void narrowValuesAreWidened() {
+        Node copy = read(write(new Node(5) {}));
+        assertTrue(copy instanceof NodeLong);
+        assertEquals(5L, copy.asLong());
+
+        copy = read(write(new Node((short) -3) {}));
+        assertTrue(copy instanceof NodeLong);
+        assertEquals(-3L, copy.asLong());
+
+        copy = read(write(new Node(1.5f) {}));
+        assertTrue(copy instanceof NodeDouble);
+        assertEquals(1.5, copy.asDouble(), 0.0);
+    }
+
+    @Test
+    public void unsupportedValuesAreRejected() {
+        assertThrows(NodeError.class, () -> write(new Node(UUID.randomUUID()) {}));
+    }
+
+    @Test
+    public void readsEventsLikeTheTextReaders() throws IOException {
+        byte[] bytes = write(NodeAdapter.json().from("{\"a\":[1,2],\"b\":\"c\"}"));
+        try (NodeReader reader = BINARY.reader(new ByteArrayInputStream(bytes))) {
+            assertEquals(NodeEvent.START_OBJECT, reader.nextEvent());
+            assertEquals(NodeEvent.KEY, reader.nextEvent());
+            assertEquals("a", reader.stringValue());
+            assertTrue(reader.skipValue());
+            assertEquals(NodeEvent.KEY, reader.nextEvent());
+            assertEquals(NodeEvent.VALUE, reader.nextEvent());
+            assertEquals("c", reader.stringValue());
+            assertEquals(NodeEvent.END_OBJECT, reader.nextEvent());
+            assertEquals(NodeEvent.END_DOCUMENT, reader.nextEvent());
+        }
+    }
+
+    @Test
+    public void oversizedCountsAreRejectedBeforeAllocating() {
+        for (int tag : new int[]{BinaryFormat.LONG_ARRAY, BinaryFormat.DOUBLE_ARRAY, BinaryFormat.STRING}) {
+            // declares ~2^31 elements but holds only three bytes of them
+            byte[] bytes = {(byte) tag, (byte) 0xF0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07, 1, 2, 3};
+            assertThrows(NodeError.class, () -> new BinaryReader(bytes).readNode());
+            assertThrows(NodeError.class, () -> read(bytes));
+        }
+    }
+
+    @Test
+    public void truncatedPayloadsAreRejected() {
+        byte[] bytes = write(NodeAdapter.json().from(DOCUMENT));
+        for (int length = 1; length < bytes.length; length++) {
+            byte[] truncated = Arrays.copyOf(bytes, length);
+            assertThrows(NodeError.class, () -> new BinaryReader(truncated).readNode());
+            assertThrows(NodeError.class, () -> read(truncated));
+        }
+    }
+}
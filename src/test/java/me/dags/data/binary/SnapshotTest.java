@@ -0,0 +1,69 @@
+package me.dags.data.binary;
+
+import me.dags.data.NodeAdapter;
+import me.dags.data.node.Node;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.Assert.*;
+
+public class SnapshotTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final NodeAdapter adapter = NodeAdapter.json();
+
+    @Test
+    public void snapshotsRoundTrip() throws IOException {
+        Node node = adapter.from(BinaryFormatTest.DOCUMENT);
+        Path snapshot = folder.getRoot().toPath().resolve("doc.snapshot");
+        adapter.toSnapshot(node, snapshot);
+        Node copy = adapter.fromSnapshot(snapshot);
+        assertEquals(node, copy);
+        assertEquals(NodeAdapter.jsonCompact().to(node), NodeAdapter.jsonCompact().to(copy));
+    }
+
+    @Test
+    public void scalarRootsRoundTrip() {
+        Path snapshot = folder.getRoot().toPath().resolve("scalar.snapshot");
+        for (Node node : new Node[]{Node.of("just a string"), Node.of(12L), Node.of(0.5), Node.TRUE, Node.NULL}) {
+            adapter.toSnapshot(node, snapshot);
+            assertEquals(node, adapter.fromSnapshot(snapshot));
+        }
+    }
+
+    @Test
+    public void cachedReadsFollowTheSource() throws IOException {
+        Path source = folder.newFile("doc.json").toPath();
+        Path snapshot = folder.getRoot().toPath().resolve("cache/doc.snapshot");
+        Files.write(source, "{\"a\":1}".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(adapter.from(source), adapter.fromCached(source, snapshot));
+        assertTrue(Files.exists(snapshot));
+        assertEquals(adapter.from(source), adapter.fromCached(source, snapshot));
+
+        Files.write(source, "{\"a\":2,\"b\":[1.5]}".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(source, FileTime.fromMillis(Files.getLastModifiedTime(source).toMillis() + 2000));
+        assertEquals(adapter.from(source), adapter.fromCached(source, snapshot));
+        assertEquals(adapter.from(source), adapter.fromSnapshot(snapshot));
+    }
+
+    @Test
+    public void unreadableSnapshotsAreReplaced() throws IOException {
+        Path source = folder.newFile("doc.json").toPath();
+        Path snapshot = folder.newFile("doc.snapshot").toPath();
+        Files.write(source, "[1,\"two\",{\"three\":3}]".getBytes(StandardCharsets.UTF_8));
+        Files.write(snapshot, "not a snapshot".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(adapter.from(source), adapter.fromCached(source, snapshot));
+        assertEquals(adapter.from(source), adapter.fromSnapshot(snapshot));
+    }
+}
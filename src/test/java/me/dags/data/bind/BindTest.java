@@ -0,0 +1,195 @@
+package me.dags.data.bind;
+
+import me.dags.data.NodeAdapter;
+import me.dags.data.node.Node;
+import me.dags.data.node.NodeError;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class BindTest {
+
+    private static final NodeAdapter JSON = NodeAdapter.jsonCompact();
+
+    static class Primitives {
+        long l;
+        int i;
+        short s;
+        byte b;
+        double d;
+        float f;
+        boolean z;
+        char c;
+        String string;
+    }
+
+    static class Boxes {
+        Long l;
+        Integer i;
+        Short s;
+        Byte b;
+        Double d;
+        Float f;
+        Boolean z;
+        Character c;
+        BigInteger big;
+        BigDecimal precise;
+    }
+
+    static class Point {
+        int x;
+        int y;
+
+        Point() {
+        }
+
+        Point(int x, int y) {
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    static class Shape {
+        String name;
+        Point origin;
+        List<Point> points;
+        Map<String, Integer> tags;
+        int[] ints;
+        long[] longs;
+        double[] doubles;
+        String[] labels;
+        Set<String> names;
+        transient int ignored = 5;
+    }
+
+    private static <T> T read(String json, Class<T> type) {
+        return JSON.read(json, type);
+    }
+
+    private static Node tree(Object value) {
+        return JSON.from(JSON.write(value));
+    }
+
+    @Test
+    public void primitivesRoundTrip() {
+        String json = "{\"l\":-9007199254740993,\"i\":-2147483648,\"s\":32767,\"b\":-128,\"d\":0.1,\"f\":1.5,"
+                + "\"z\":true,\"c\":\"x\",\"string\":\"caf\\u00e9\"}";
+        Primitives p = read(json, Primitives.class);
+        assertEquals(-9007199254740993L, p.l);
+        assertEquals(Integer.MIN_VALUE, p.i);
+        assertEquals(Short.MAX_VALUE, p.s);
+        assertEquals(Byte.MIN_VALUE, p.b);
+        assertEquals(0.1, p.d, 0.0);
+        assertEquals(1.5f, p.f, 0.0f);
+        assertTrue(p.z);
+        assertEquals('x', p.c);
+        assertEquals("café", p.string);
+        assertEquals(JSON.from(json), tree(p));
+    }
+
+    @Test
+    public void boxedTypesRoundTrip() {
+        String json = "{\"l\":5,\"i\":-6,\"s\":7,\"b\":8,\"d\":2.5,\"f\":0.5,\"z\":false,\"c\":\"y\","
+                + "\"big\":123456789012345678901234567890,\"precise\":1E+400}";
+        Boxes b = read(json, Boxes.class);
+        assertEquals(Long.valueOf(5), b.l);
+        assertEquals(Integer.valueOf(-6), b.i);
+        assertEquals(Short.valueOf((short) 7), b.s);
+        assertEquals(Byte.valueOf((byte) 8), b.b);
+        assertEquals(Double.valueOf(2.5), b.d);
+        assertEquals(Float.valueOf(0.5f), b.f);
+        assertEquals(Boolean.FALSE, b.z);
+        assertEquals(Character.valueOf('y'), b.c);
+        assertEquals(new BigInteger("123456789012345678901234567890"), b.big);
+        assertEquals(new BigDecimal("1E+400"), b.precise);
+        assertEquals(JSON.from(json), tree(b));
+    }
+
+    @Test
+    public void nestedObjectsAndCollectionsRoundTrip() {
+        String json = "{\"name\":\"tri\",\"origin\":{\"x\":1,\"y\":2},\"points\":[{\"x\":3,\"y\":4},{\"x\":5,\"y\":6}],"
+                + "\"tags\":{\"a\":1,\"b\":2},\"ints\":[1,-2,3],\"longs\":[4000000000],\"doubles\":[0.5,1.0],"
+                + "\"labels\":[\"p\",null],\"names\":[\"n\",\"m\"]}";
+        Shape shape = read(json, Shape.class);
+        assertEquals("tri", shape.name);
+        assertEquals(2, shape.origin.y);
+        assertEquals(2, shape.points.size());
+        assertEquals(5, shape.points.get(1).x);
+        assertEquals(Integer.valueOf(2), shape.tags.get("b"));
+        assertArrayEquals(new int[]{1, -2, 3}, shape.ints);
+        assertArrayEquals(new long[]{4000000000L}, shape.longs);
+        assertArrayEquals(new double[]{0.5, 1.0}, shape.doubles, 0.0);
+        assertArrayEquals(new String[]{"p", null}, shape.labels);
+        assertEquals(new LinkedHashSet<>(Arrays.asList("n", "m")), shape.names);
+        assertEquals(JSON.from(json), tree(shape));
+    }
+
+    @Test
+    public void bindingMatchesTheTreeThroughEveryReader() {
+        Shape shape = new Shape();
+        shape.name = "sq";
+        shape.origin = new Point(-1, 1);
+        shape.points = Arrays.asList(new Point(0, 0), new Point(1, 1));
+        shape.ints = new int[]{7};
+        Node expected = tree(shape);
+
+        for (NodeAdapter adapter : new NodeAdapter[]{NodeAdapter.json(), NodeAdapter.hocon(), NodeAdapter.binary()}) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            adapter.write(shape, out);
+            Shape copy = adapter.read(new ByteArrayInputStream(out.toByteArray()), Shape.class);
+            assertEquals(adapter.toString(), expected, tree(copy));
+        }
+    }
+
+    @Test
+    public void missingAndNullFields() {
+        Shape shape = read("{\"name\":null,\"origin\":null,\"unknown\":{\"a\":[1]}}", Shape.class);
+        assertNull(shape.name);
+        assertNull(shape.origin);
+        assertNull(shape.points);
+        assertEquals(5, shape.ignored);
+
+        Primitives p = read("{\"i\":null,\"l\":3}", Primitives.class);
+        assertEquals(0, p.i);
+        assertEquals(3L, p.l);
+
+        Boxes b = read("{\"i\":null}", Boxes.class);
+        assertNull(b.i);
+        assertNull(b.l);
+        assertNull(read("null", Shape.class));
+    }
+
+    @Test
+    public void numbersOutOfRangeAreRejected() {
+        String[] overflows = {
+                "{\"b\":300}", "{\"b\":-129}", "{\"s\":40000}", "{\"i\":2147483648}", "{\"i\":-2147483649}",
+                "{\"i\":1e20}", "{\"l\":18446744073709551617}", "{\"l\":1e19}"
+        };
+        for (String json : overflows) {
+            try {
+                read(json, Primitives.class);
+                fail("Accepted " + json);
+            } catch (NodeError expected) {
+                String field = json.substring(2, json.indexOf('"', 2));
+                assertTrue(expected.getMessage(), expected.getMessage().contains(Primitives.class.getName() + "." + field));
+            }
+            assertThrows(NodeError.class, () -> read(json, Boxes.class));
+        }
+        assertThrows(NodeError.class, () -> read("{\"ints\":[1,4294967296]}", Shape.class));
+        assertThrows(NodeError.class, () -> read("{\"tags\":{\"a\":3000000000}}", Shape.class));
+        assertThrows(NodeError.class, () -> read("{\"points\":[{\"x\":3000000000}]}", Shape.class));
+
+        Primitives edges = read("{\"b\":127,\"s\":-32768,\"i\":2147483647,\"l\":-9223372036854775808}", Primitives.class);
+        assertEquals(Byte.MAX_VALUE, edges.b);
+        assertEquals(Short.MIN_VALUE, edges.s);
+        assertEquals(Integer.MAX_VALUE, edges.i);
+        assertEquals(Long.MIN_VALUE, edges.l);
+        assertEquals(2, read("{\"i\":2.9}", Primitives.class).i);
+    }
+}
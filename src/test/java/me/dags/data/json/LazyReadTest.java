@@ -0,0 +1,59 @@
+package me.dags.data.json;
+
+import me.dags.data.NodeAdapter;
+import me.dags.data.node.Node;
+import me.dags.data.node.NodeArray;
+import me.dags.data.node.NodeObject;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LazyReadTest {
+
+    private static final String[] DOCUMENTS = {
+            "{\"a\":{\"b\":[1,2,{\"c\":\"]}\\\"\"}],\"d\":[]},\"e\":{},\"f\":[[1.5],[\"x\",null,true]],\"g\":\"h\"}",
+            "[{\"id\":1,\"tags\":[\"a\"]},{\"id\":2,\"tags\":[]},3,\"four\",[5,[6,[7]]]]",
+            "\"just a string\"",
+            "42",
+            "[]",
+            "{}",
+    };
+
+    private static final NodeAdapter EAGER = NodeAdapter.builder().readJsonBytes().build();
+    private static final NodeAdapter LAZY = NodeAdapter.builder().readJsonLazy().build();
+
+    @Test
+    public void lazyTreesEqualEagerTrees() {
+        for (String document : DOCUMENTS) {
+            Node eager = EAGER.from(document);
+            Node lazy = LAZY.from(document);
+            assertEquals(document, eager, lazy);
+            assertEquals(document, eager.hashCode(), lazy.hashCode());
+            assertEquals(document, NodeAdapter.jsonCompact().to(eager), NodeAdapter.jsonCompact().to(lazy));
+        }
+    }
+
+    @Test
+    public void partiallyLoadedTreesStayCorrect() {
+        NodeObject eager = EAGER.from(DOCUMENTS[0]).asNodeObject();
+        NodeObject lazy = LAZY.from(DOCUMENTS[0]).asNodeObject();
+
+        NodeArray b = lazy.getObject("a").getArray("b");
+        assertEquals("]}\"", b.get(2).asNodeObject().get("c").asString());
+        assertEquals(eager.getArray("f").get(1), lazy.getArray("f").get(1));
+        assertEquals("h", lazy.get("g").asString());
+        assertEquals(eager, lazy);
+    }
+
+    @Test
+    public void lazyTreesCanBeModified() {
+        NodeObject lazy = LAZY.from(DOCUMENTS[0]).asNodeObject();
+        NodeObject eager = EAGER.from(DOCUMENTS[0]).asNodeObject();
+        lazy.getObject("a").put("z", 1);
+        eager.getObject("a").put("z", 1);
+        lazy.getArray("f").add("end");
+        eager.getArray("f").add("end");
+        assertEquals(eager, lazy);
+        assertEquals(NodeAdapter.jsonCompact().to(eager), NodeAdapter.jsonCompact().to(lazy));
+    }
+}
@@ -0,0 +1,125 @@
+package me.dags.data.json;
+
+import me.dags.data.NodeAdapter;
+import me.dags.data.node.Node;
+import me.dags.data.node.NodeError;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class ParallelArrayReaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    // elements whose strings hold the characters the pre-scan has to see past
+    private static String awkwardArray(int count) {
+        StringBuilder builder = new StringBuilder(" [ ");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                builder.append(i % 3 == 0 ? " ,\n" : ",");
+            }
+            switch (i % 6) {
+                case 0:
+                    builder.append("\"a,b]c\\\"d\\\\\"");
+                    break;
+                case 1:
+                    builder.append(i * 31L);
+                    break;
+                case 2:
+                    builder.append("{\"k\":[1,\"]\",{\"x\":\"}\"}],\"z\":null}");
+                    break;
+                case 3:
+                    builder.append("[\"\\\\\",true,\"é\"]");
+                    break;
+                case 4:
+                    builder.append(i / 7.0);
+                    break;
+                default:
+                    builder.append("false");
+            }
+        }
+        return builder.append(" ] \n").toString();
+    }
+
+    private static ParallelArrayReader reader(String json) {
+        return ParallelArrayReader.of(ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8)), 16);
+    }
+
+    @Test
+    public void chunkedReadEqualsSequentialRead() {
+        String json = awkwardArray(50000);
+        ParallelArrayReader reader = reader(json);
+        assertTrue(reader.chunks() > 1);
+        assertEquals(50000, reader.count());
+        Node sequential = NodeAdapter.json().from(json);
+        assertEquals(sequential, reader.read(POOL));
+        assertEquals(sequential.asNodeArray().values(), reader.stream().collect(Collectors.toList()));
+    }
+
+    @Test
+    public void smallAndEmptyArrays() {
+        assertEquals(0, reader("[]").read(POOL).count());
+        assertEquals(0, reader(" [ ] ").read(POOL).count());
+        assertEquals(NodeAdapter.json().from("[1]"), reader("[1]").read(POOL));
+        assertEquals(NodeAdapter.json().from("[\"x\" , {\"a\":[]} ]"), reader("[\"x\" , {\"a\":[]} ]").read(POOL));
+    }
+
+    @Test
+    public void otherRootsAreNotRead() {
+        assertNull(reader("{\"a\":[1,2]}"));
+        assertNull(reader("42"));
+        assertNull(reader(""));
+    }
+
+    @Test
+    public void malformedArraysAreRejected() {
+        assertThrows(NodeError.class, () -> reader("[1,2"));
+        assertThrows(NodeError.class, () -> reader("[\"]\""));
+        assertThrows(NodeError.class, () -> reader("[1,2] garbage"));
+        assertThrows(NodeError.class, () -> reader("[1,2][3]"));
+        // the sequential reader treats commas as optional, but chunk boundaries depend on them
+        for (String malformed : new String[]{"[1 2]", "[1,]", "[,1]", "[1,,2]", "[\"a\"\"b\"]", "[1\"a\"]",
+                "[[1] [2]]", "[{\"a\":1} {}]", "[1}", "[ 1 , ]"}) {
+            try {
+                reader(malformed);
+                fail("Accepted " + malformed);
+            } catch (NodeError expected) {
+                assertTrue(expected.getMessage(), expected.getMessage().contains("at position"));
+            }
+        }
+        assertEquals(NodeAdapter.json().from("[ 1 , \"a\" ,[2] ,{} ,true ]"), reader("[ 1 , \"a\" ,[2] ,{} ,true ]").read(POOL));
+    }
+
+    @Test
+    public void chunksHoldingExtraValuesAreRejected() {
+        JsonByteReader reader = new JsonByteReader(ByteBuffer.wrap("1,2 3".getBytes(StandardCharsets.UTF_8)));
+        assertThrows(NodeError.class, () -> reader.readElements(new Node[2], 0, 2));
+    }
+
+    @Test
+    public void adapterReadsFilesInParallel() throws IOException {
+        Path file = folder.newFile("array.json").toPath();
+        Files.write(file, awkwardArray(20000).getBytes(StandardCharsets.UTF_8));
+        NodeAdapter adapter = NodeAdapter.json();
+        Node sequential = adapter.from(file);
+        assertEquals(sequential, adapter.fromParallel(file, POOL));
+        assertEquals(sequential.asNodeArray().values(), adapter.streamArray(file).collect(Collectors.toList()));
+
+        Path object = folder.newFile("object.json").toPath();
+        Files.write(object, "{\"a\":1}".getBytes(StandardCharsets.UTF_8));
+        assertEquals(adapter.from(object), adapter.fromParallel(object));
+    }
+}
@@ -0,0 +1,61 @@
+package me.dags.data.node;
+
+import me.dags.data.NodeAdapter;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class FreezeTest {
+
+    private static final String JSON = "{\"a\":{\"b\":[1,2,3],\"c\":[\"x\",{\"d\":true}]},\"e\":\"f\"}";
+
+    @Test
+    public void emptyPlaceholdersAreFrozen() {
+        NodeObject object = new NodeObject().getObject("missing");
+        NodeArray array = new NodeObject().getArray("missing");
+        assertTrue(object.isFrozen());
+        assertTrue(array.isFrozen());
+        assertThrows(NodeError.class, () -> object.put("a", 1));
+        assertThrows(NodeError.class, () -> array.add(1));
+        assertEquals(0, object.count());
+        assertEquals(0, array.count());
+    }
+
+    @Test
+    public void freezeReachesEveryDescendant() {
+        NodeObject root = NodeAdapter.json().from(JSON).asNodeObject();
+        assertFalse(root.isFrozen());
+        assertSame(root, root.freeze());
+
+        NodeObject a = root.getObject("a");
+        NodeArray c = a.getArray("c");
+        assertTrue(a.isFrozen());
+        assertTrue(a.getArray("b").isFrozen());
+        assertTrue(c.get(1).asNodeObject().isFrozen());
+
+        assertThrows(NodeError.class, () -> root.put("z", 1));
+        assertThrows(NodeError.class, () -> a.getArray("b").add(4));
+        assertThrows(NodeError.class, () -> c.get(1).asNodeObject().put("d", false));
+        assertThrows(UnsupportedOperationException.class, () -> c.values().add(Node.NULL));
+        Map.Entry<Node, Node> entry = root.entries().iterator().next();
+        assertThrows(NodeError.class, () -> entry.setValue(Node.NULL));
+    }
+
+    @Test
+    public void frozenTreesEqualTheirMutableOriginals() {
+        Node mutable = NodeAdapter.json().from(JSON);
+        Node frozen = NodeAdapter.builder().readJson().frozen().build().from(JSON);
+        assertTrue(frozen.isFrozen());
+        assertEquals(mutable, frozen);
+        assertEquals(mutable.hashCode(), frozen.hashCode());
+    }
+
+    @Test
+    public void freezeLoadsLazilyReadContent() {
+        Node lazy = NodeAdapter.builder().readJsonLazy().build().from(JSON).freeze();
+        assertEquals(NodeAdapter.json().from(JSON), lazy);
+        assertTrue(lazy.asNodeObject().getObject("a").getArray("c").isFrozen());
+    }
+}
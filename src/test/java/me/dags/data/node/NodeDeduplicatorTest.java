@@ -0,0 +1,50 @@
+package me.dags.data.node;
+
+import me.dags.data.NodeAdapter;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class NodeDeduplicatorTest {
+
+    @Test
+    public void objectsWithReorderedKeysAreNotMerged() {
+        String json = "[{\"a\":1,\"b\":2},{\"b\":2,\"a\":1}]";
+        NodeAdapter adapter = NodeAdapter.builder().readJson().writeJsonCompact().deduplicate().build();
+        NodeArray array = adapter.from(json).asNodeArray();
+        assertEquals(json, adapter.to(array));
+        assertNotSame(array.get(0), array.get(1));
+    }
+
+    @Test
+    public void equalSubtreesAreShared() {
+        String json = "[{\"p\":{\"x\":1,\"y\":[1,2]},\"s\":\"name\"},{\"p\":{\"x\":1,\"y\":[1,2]},\"s\":\"name\"}]";
+        NodeDeduplicator deduplicator = new NodeDeduplicator();
+        Node before = NodeAdapter.json().from(json);
+        NodeArray array = deduplicator.deduplicate(NodeAdapter.json().from(json)).asNodeArray();
+
+        assertEquals(before, array);
+        assertSame(array.get(0), array.get(1));
+        assertTrue(array.isFrozen());
+        assertTrue(deduplicator.nodesShared() > 0);
+        assertTrue(deduplicator.bytesSaved() > 0);
+    }
+
+    @Test
+    public void valuesAreSharedBetweenDocuments() {
+        NodeDeduplicator deduplicator = new NodeDeduplicator();
+        Node first = deduplicator.deduplicate(NodeAdapter.json().from("{\"k\":{\"a\":[\"x\",\"y\"]}}"));
+        Node second = deduplicator.deduplicate(NodeAdapter.json().from("{\"other\":{\"a\":[\"x\",\"y\"]}}"));
+        assertSame(first.asNodeObject().get("k"), second.asNodeObject().get("other"));
+    }
+
+    @Test
+    public void arraysAreOnlySharedInTheSameOrder() {
+        NodeDeduplicator deduplicator = new NodeDeduplicator();
+        NodeArray array = deduplicator.deduplicate(NodeAdapter.json().from("[[\"a\",\"b\"],[\"b\",\"a\"],[1,2],[2,1],[1,2]]")).asNodeArray();
+        assertNotSame(array.get(0), array.get(1));
+        assertNotSame(array.get(2), array.get(3));
+        assertSame(array.get(2), array.get(4));
+        assertEquals("[[\"a\",\"b\"],[\"b\",\"a\"],[1,2],[2,1],[1,2]]", NodeAdapter.jsonCompact().to(array));
+    }
+}
@@ -0,0 +1,58 @@
+package me.dags.data.node;
+
+import me.dags.data.NodeAdapter;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class NodeObjectTest {
+
+    @Test
+    public void missedLookupCanBeCountedIteratedAndWritten() {
+        NodeObject missing = new NodeObject().getObject("missing");
+
+        assertFalse(missing.isPresent());
+        assertEquals(0, missing.count());
+        assertTrue(missing.empty());
+        assertFalse(missing.entries().iterator().hasNext());
+        assertEquals("{}", missing.toString());
+        assertEquals(0, missing.hashCode());
+        assertEquals("{}", NodeAdapter.jsonCompact().to(missing));
+
+        NodeAdapter binary = NodeAdapter.binary();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        binary.to(missing, out);
+        assertEquals(new NodeObject(), binary.from(new ByteArrayInputStream(out.toByteArray())));
+    }
+
+    @Test
+    public void entriesKeepInsertionOrder() {
+        NodeObject object = new NodeObject();
+        object.put("b", 1);
+        object.put("a", 2);
+        object.put("c", 3);
+        StringBuilder keys = new StringBuilder();
+        for (Map.Entry<Node, Node> entry : object.entries()) {
+            keys.append(entry.getKey().asString());
+        }
+        assertEquals("bac", keys.toString());
+        assertEquals(2, object.get("a").asInt());
+        assertFalse(object.get("d").isPresent());
+    }
+
+    @Test
+    public void objectsReadWithTheSameKeysStayIndependent() {
+        NodeArray array = NodeAdapter.json().from("[{\"a\":1,\"b\":2},{\"a\":3,\"b\":4}]").asNodeArray();
+        NodeObject first = array.get(0).asNodeObject();
+        NodeObject second = array.get(1).asNodeObject();
+        first.put("c", 5);
+        assertEquals(3, first.count());
+        assertEquals(2, second.count());
+        assertFalse(second.contains("c"));
+        assertEquals(3, second.get("a").asInt());
+    }
+}
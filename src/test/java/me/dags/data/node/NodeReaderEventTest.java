@@ -0,0 +1,115 @@
+package me.dags.data.node;
+
+import me.dags.data.NodeAdapter;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static me.dags.data.node.NodeEvent.*;
+import static org.junit.Assert.*;
+
+public class NodeReaderEventTest {
+
+    private static final String JSON = "{\"a\":[1,2.5],\"b\":{\"c\":\"d\",\"e\":true},\"f\":null}";
+
+    private static final NodeAdapter[] JSON_ADAPTERS = {
+            NodeAdapter.json(),
+            NodeAdapter.builder().readJsonBytes().build(),
+    };
+
+    @Test
+    public void eventsFollowTheDocument() throws IOException {
+        for (NodeAdapter adapter : JSON_ADAPTERS) {
+            assertEquals(Arrays.asList(
+                    START_OBJECT, KEY, START_ARRAY, VALUE, VALUE, END_ARRAY,
+                    KEY, START_OBJECT, KEY, VALUE, KEY, VALUE, END_OBJECT,
+                    KEY, VALUE, END_OBJECT, END_DOCUMENT
+            ), events(adapter, JSON));
+        }
+    }
+
+    @Test
+    public void valuesAreAvailableAfterEachEvent() throws IOException {
+        for (NodeAdapter adapter : JSON_ADAPTERS) {
+            try (NodeReader reader = reader(adapter, JSON)) {
+                assertEquals(START_OBJECT, reader.nextEvent());
+                assertEquals(KEY, reader.nextEvent());
+                assertEquals("a", reader.stringValue());
+                assertEquals(START_ARRAY, reader.nextEvent());
+                assertEquals(VALUE, reader.nextEvent());
+                assertEquals(1L, reader.longValue());
+                assertEquals(VALUE, reader.nextEvent());
+                assertEquals(2.5, reader.doubleValue(), 0.0);
+                assertEquals(2, reader.depth());
+                assertEquals(END_ARRAY, reader.nextEvent());
+                assertEquals(KEY, reader.nextEvent());
+                assertEquals(START_OBJECT, reader.nextEvent());
+                assertEquals(NodeAdapter.json().from("{\"c\":\"d\",\"e\":true}"), reader.readSubtree());
+                assertEquals(KEY, reader.nextEvent());
+                assertEquals("f", reader.stringValue());
+                assertTrue(reader.skipValue());
+                assertFalse(reader.skipValue());
+                assertEquals(END_OBJECT, reader.nextEvent());
+                assertEquals(END_DOCUMENT, reader.nextEvent());
+                assertEquals(END_DOCUMENT, reader.nextEvent());
+            }
+        }
+    }
+
+    @Test
+    public void truncatedInputIsRejected() throws IOException {
+        for (NodeAdapter adapter : JSON_ADAPTERS) {
+            for (String truncated : new String[]{"{\"a\":[1,2", "{\"a\":1", "[{\"a\":1}", "[1,"}) {
+                try {
+                    events(adapter, truncated);
+                    fail("Accepted truncated input " + truncated);
+                } catch (NodeError expected) {
+                    assertTrue(expected.getMessage().startsWith("Unexpected end of input"));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void skippingATruncatedContainerIsRejected() throws IOException {
+        for (NodeAdapter adapter : JSON_ADAPTERS) {
+            try (NodeReader reader = reader(adapter, "{\"a\":{\"b\":[1,2")) {
+                assertEquals(START_OBJECT, reader.nextEvent());
+                assertEquals(KEY, reader.nextEvent());
+                assertThrows(NodeError.class, reader::skipValue);
+            }
+            try (NodeReader reader = reader(adapter, "[[1,2")) {
+                assertEquals(START_ARRAY, reader.nextEvent());
+                assertEquals(START_ARRAY, reader.nextEvent());
+                assertThrows(NodeError.class, reader::skipChildren);
+            }
+        }
+    }
+
+    @Test
+    public void hoconRootWithoutBracesEndsAtEndOfInput() throws IOException {
+        assertEquals(Arrays.asList(START_OBJECT, KEY, VALUE, KEY, START_ARRAY, VALUE, END_ARRAY, END_OBJECT, END_DOCUMENT),
+                events(NodeAdapter.hocon(), "a = 1\nb = [2]\n"));
+    }
+
+    private static NodeReader reader(NodeAdapter adapter, String input) {
+        return adapter.reader(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static List<NodeEvent> events(NodeAdapter adapter, String input) throws IOException {
+        List<NodeEvent> events = new ArrayList<>();
+        try (NodeReader reader = reader(adapter, input)) {
+            NodeEvent event;
+            do {
+                event = reader.nextEvent();
+                events.add(event);
+            } while (event != END_DOCUMENT);
+        }
+        return events;
+    }
+}
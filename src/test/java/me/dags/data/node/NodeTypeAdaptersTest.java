@@ -0,0 +1,114 @@
+package me.dags.data.node;
+
+import me.dags.data.NodeAdapter;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class NodeTypeAdaptersTest {
+
+    static class Shape {
+        String name = "shape";
+    }
+
+    static class Circle extends Shape {
+    }
+
+    static class Square extends Shape {
+    }
+
+    interface Named {
+        String name();
+    }
+
+    static class Tag implements Named {
+        @Override
+        public String name() {
+            return "tag";
+        }
+    }
+
+    private static final NodeTypeAdapter<Shape> SHAPES = new NodeTypeAdapter<Shape>() {
+        @Override
+        public Node toNode(Shape shape) {
+            return Node.of(shape.name);
+        }
+
+        @Override
+        public Shape fromNode(Node node) {
+            Shape shape = new Shape();
+            shape.name = node.asString();
+            return shape;
+        }
+    };
+
+    private static final NodeTypeAdapter<Named> NAMES = new NodeTypeAdapter<Named>() {
+        @Override
+        public Node toNode(Named named) {
+            return Node.of(named.name());
+        }
+
+        @Override
+        public Named fromNode(Node node) {
+            return node::asString;
+        }
+    };
+
+    @BeforeClass
+    public static void register() {
+        NodeTypeAdapters.register(Shape.class, SHAPES);
+        NodeTypeAdapters.register(Named.class, NAMES);
+    }
+
+    @Test
+    public void ofOnlyFindsExactRegistrations() {
+        assertSame(SHAPES, NodeTypeAdapters.of(Shape.class));
+        assertNull(NodeTypeAdapters.of(Circle.class));
+        assertNull(NodeTypeAdapters.of(Tag.class));
+    }
+
+    @Test
+    public void resolveFindsSupertypeAdapters() {
+        assertSame(SHAPES, NodeTypeAdapters.resolve(Shape.class));
+        assertSame(SHAPES, NodeTypeAdapters.resolve(Circle.class));
+        assertSame(NAMES, NodeTypeAdapters.resolve(Tag.class));
+        assertNull(NodeTypeAdapters.resolve(StringBuilder.class));
+
+        assertEquals(Node.of("shape"), NodeTypeAdapters.serialize(new Circle()));
+        assertEquals(Node.of("tag"), NodeTypeAdapters.serialize(new Tag()));
+    }
+
+    @Test
+    public void registeringReplacesEarlierResolutions() {
+        assertSame(SHAPES, NodeTypeAdapters.resolve(Square.class));
+        NodeTypeAdapter<Square> squares = new NodeTypeAdapter<Square>() {
+            @Override
+            public Node toNode(Square square) {
+                return Node.of("square");
+            }
+
+            @Override
+            public Square fromNode(Node node) {
+                return new Square();
+            }
+        };
+        NodeTypeAdapters.register(Square.class, squares);
+        assertSame(squares, NodeTypeAdapters.of(Square.class));
+        assertSame(squares, NodeTypeAdapters.resolve(Square.class));
+        assertEquals(Node.of("square"), NodeTypeAdapters.serialize(new Square()));
+    }
+
+    @Test
+    public void bindingChecksWhatASupertypeAdapterReads() {
+        NodeAdapter json = NodeAdapter.json();
+        assertEquals("\"shape\"", json.write(new Circle()));
+        assertEquals("round", json.read("\"round\"", Shape.class).name);
+        try {
+            json.read("\"round\"", Circle.class);
+            fail("Read a Shape as a Circle");
+        } catch (NodeError e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(Circle.class.getName()));
+        }
+    }
+}
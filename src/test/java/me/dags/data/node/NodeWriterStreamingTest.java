@@ -0,0 +1,81 @@
+package me.dags.data.node;
+
+import me.dags.data.NodeAdapter;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class NodeWriterStreamingTest {
+
+    private static final String DOCUMENT = "{\"id\":7,\"name\":\"a \\\"b\\\"\\n\",\"ok\":false,\"none\":null,\"ratio\":2.5,"
+            + "\"tags\":[\"x\",\"y\"],\"longs\":[1,2,3],\"rows\":[{\"a\":1},{\"a\":[]}],\"empty\":{},\"nested\":{\"k\":{\"v\":[[1],[\"2\"]]}}}";
+
+    private static final WriterProvider[] WRITERS = {
+            WriterProvider.JSON_PRETTY,
+            WriterProvider.JSON_COMPACT,
+            WriterProvider.JSON_PRETTY_UTF8,
+            WriterProvider.JSON_COMPACT_UTF8,
+            WriterProvider.HOCON_PRETTY,
+            WriterProvider.HOCON_COMAPCT,
+    };
+
+    @Test
+    public void streamedOutputMatchesTreeOutput() throws IOException {
+        Node document = NodeAdapter.json().from(DOCUMENT);
+        for (WriterProvider provider : WRITERS) {
+            NodeAdapter adapter = new NodeAdapter(ReaderProvider.JSON, provider);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (NodeWriter writer = adapter.writer(out)) {
+                replay(writer, document);
+            }
+            assertEquals(adapter.to(document), out.toString("UTF-8"));
+        }
+    }
+
+    @Test
+    public void wholeSubtreesCanBeWrittenAsValues() throws IOException {
+        Node document = NodeAdapter.json().from(DOCUMENT);
+        NodeAdapter adapter = NodeAdapter.jsonCompact();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (NodeWriter writer = adapter.writer(out)) {
+            writer.openObject();
+            for (Map.Entry<Node, Node> entry : document.asNodeObject().entries()) {
+                writer.key(entry.getKey().asString()).value(entry.getValue());
+            }
+            writer.closeObject();
+        }
+        assertEquals(adapter.to(document), out.toString("UTF-8"));
+    }
+
+    @Test
+    public void misplacedKeysAreRejected() throws IOException {
+        try (NodeWriter writer = NodeAdapter.jsonCompact().writer(new ByteArrayOutputStream())) {
+            writer.openArray();
+            assertThrows(NodeError.class, () -> writer.key("a"));
+        }
+    }
+
+    // walks the tree writing one token at a time, as a caller generating the document would
+    private static void replay(NodeWriter writer, Node node) throws IOException {
+        if (node.isNodeObject()) {
+            writer.openObject();
+            for (Map.Entry<Node, Node> entry : node.asNodeObject().entries()) {
+                writer.key(entry.getKey().asString());
+                replay(writer, entry.getValue());
+            }
+            writer.closeObject();
+        } else if (node.isNodeArray()) {
+            writer.openArray();
+            for (Node element : node.asNodeArray().values()) {
+                replay(writer, element);
+            }
+            writer.closeArray();
+        } else {
+            writer.value(node);
+        }
+    }
+}
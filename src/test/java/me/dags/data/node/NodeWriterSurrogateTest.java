@@ -0,0 +1,94 @@
+package me.dags.data.node;
+
+import me.dags.data.json.JsonWriter;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class NodeWriterSurrogateTest {
+
+    private static final String[] STRINGS = {
+            "a\uD83D\uDE00b",          // a valid pair
+            "x\uD800",                 // high surrogate at the end
+            "\uD800y",                 // high surrogate before ascii
+            "\uD800\u00e9",            // high surrogate before a two byte char
+            "\uDC00z",                 // low surrogate on its own
+            "\uD800\uD83D\uDE00",      // high surrogate before a valid pair
+            "\uDE00\uD83D",            // a pair in the wrong order
+            "\uD800\n",                // high surrogate before an escaped char
+    };
+
+    private static byte[] write(WriterProvider provider, String string) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (NodeWriter writer = provider.get(out)) {
+            writer.openObject().key(string).value(string).closeObject();
+        }
+        return out.toByteArray();
+    }
+
+    private static String decodeStrictly(byte[] bytes) throws CharacterCodingException {
+        return StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT)
+                .decode(ByteBuffer.wrap(bytes))
+                .toString();
+    }
+
+    // what OutputStreamWriter, and String.getBytes(), write for the same string
+    private static String replaced(String string) {
+        return new String(string.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void unpairedSurrogatesAreWrittenAsQuestionMarks() throws IOException {
+        for (String string : STRINGS) {
+            String expected = replaced(string).replace("\n", "\\n");
+            String json = decodeStrictly(write(WriterProvider.JSON_COMPACT_UTF8, string));
+            assertEquals("{\"" + expected + "\":\"" + expected + "\"}", json);
+
+            String hocon = decodeStrictly(write(WriterProvider.HOCON_PRETTY, string));
+            assertTrue(hocon, hocon.contains(expected));
+        }
+    }
+
+    @Test
+    public void escapedOutputKeepsSurrogatesAsEscapes() throws IOException {
+        String json = decodeStrictly(write(WriterProvider.JSON_COMPACT, "x\uD800"));
+        assertEquals("{\"x\\ud800\":\"x\\ud800\"}", json.toLowerCase());
+    }
+
+    @Test
+    public void pendingHighSurrogateIsWrittenOnFlushAndClose() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RawWriter writer = new RawWriter(out);
+        writer.raw('a');
+        writer.raw('\uD83D');
+        writer.flush();
+        assertEquals("a?", decodeStrictly(out.toByteArray()));
+
+        writer.raw('\uDE00');
+        writer.raw('\uD83D');
+        writer.raw('\uDE00');
+        writer.raw('\uD800');
+        writer.close();
+        assertEquals("a??\uD83D\uDE00?", decodeStrictly(out.toByteArray()));
+    }
+
+    private static final class RawWriter extends JsonWriter {
+
+        private RawWriter(ByteArrayOutputStream out) {
+            super(out, true, false);
+        }
+
+        private void raw(char c) throws IOException {
+            append(c);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package me.dags.data.node;
+
+import me.dags.data.NodeAdapter;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class NumberParsingTest {
+
+    private static final NodeAdapter[] ADAPTERS = {
+            NodeAdapter.json(),
+            NodeAdapter.builder().readJsonBytes().build(),
+            NodeAdapter.hocon(),
+    };
+
+    private static final String[] INTEGERS = {
+            "0", "-0", "7", "-7", "00012", "9007199254740992", "9007199254740993", "-9007199254740993",
+            "999999999999999999", "1000000000000000000", "9223372036854775807", "-9223372036854775808",
+            "9223372036854775808", "-9223372036854775809", "18446744073709551617",
+            "123456789012345678901234567890", "-000000000000000000000000000001"
+    };
+
+    private static final String[] DECIMALS = {
+            "0.0", "-0.0", "0.1", "-2.5", "0.30000000000000004", "1e5", "1E+5", "1e-5", "-1.5E-7", "0.1e1", ".5",
+            "123456789012345678.5", "1234567890123456789e-5", "0.000000000000000000000000000001",
+            "9007199254740993.0", "2.2250738585072011e-308", "2.2250738585072014E-308", "4.9e-324", "1e-400",
+            "1.7976931348623157e308", "179769313486231580793728971405301e276", "3.14159265358979323846264338327950288"
+    };
+
+    private static final String[] OUT_OF_RANGE = {
+            "1e400", "-1e400", "1.7976931348623159e308", "123456789e999999"
+    };
+
+    private static Node parse(NodeAdapter adapter, String number) {
+        // parsed inside an array, so that hocon doesn't read the root as an object
+        return adapter.from("[" + number + "]").asNodeArray().get(0);
+    }
+
+    @Test
+    public void integersMatchLongOrBigInteger() {
+        for (NodeAdapter adapter : ADAPTERS) {
+            for (String number : INTEGERS) {
+                Node node = parse(adapter, number);
+                BigInteger expected = new BigInteger(number);
+                if (expected.bitLength() < 64) {
+                    assertTrue(number, node instanceof NodeLong);
+                    assertEquals(number, Long.parseLong(number), node.asLong());
+                } else {
+                    assertEquals(number, expected, node.asObject());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void decimalsMatchParseDouble() {
+        for (NodeAdapter adapter : ADAPTERS) {
+            for (String number : DECIMALS) {
+                assertSameDouble(number, parse(adapter, number));
+            }
+        }
+    }
+
+    @Test
+    public void randomDecimalsMatchParseDouble() {
+        Random random = new Random(8);
+        List<String> numbers = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            numbers.add(Double.toString(Double.longBitsToDouble(random.nextLong())));
+            numbers.add(Double.toString(random.nextDouble() * Math.pow(10, random.nextInt(40) - 20)));
+            // up to 25 significant digits, past the 15 of the exact fast path and the 18 kept in a long
+            numbers.add((random.nextBoolean() ? "-" : "") + digits(random, 1 + random.nextInt(13)) + "."
+                    + digits(random, 1 + random.nextInt(12)) + "e" + (random.nextInt(80) - 40));
+        }
+        NodeAdapter json = NodeAdapter.json();
+        for (String number : numbers) {
+            if (number.contains("NaN") || number.contains("Infinity")) {
+                continue;
+            }
+            assertSameDouble(number, parse(json, number));
+        }
+    }
+
+    @Test
+    public void decimalsBeyondDoubleAreBigDecimals() {
+        for (NodeAdapter adapter : ADAPTERS) {
+            for (String number : OUT_OF_RANGE) {
+                assertEquals(number, new BigDecimal(number), parse(adapter, number).asObject());
+            }
+        }
+    }
+
+    @Test
+    public void malformedNumbersReportTheirPosition() {
+        String[][] cases = {
+                {"[1.2.3]", "'1.2.3' at position 1"},
+                {"[1, 2-3]", "'2-3' at position 4"},
+                {"[1e]", "'1e' at position 1"},
+                {"[1e+]", "'1e+' at position 1"},
+                {"[ -]", "'-' at position 2"},
+                {"[1.]", "'1.' at position 1"},
+                {"[--1]", "'--1' at position 1"},
+                {"[1,1e999999999999]", "'1e999999999999' at position 3"},
+        };
+        for (NodeAdapter adapter : new NodeAdapter[]{ADAPTERS[0], ADAPTERS[1]}) {
+            for (String[] malformed : cases) {
+                try {
+                    adapter.from(malformed[0]);
+                    fail("Accepted " + malformed[0]);
+                } catch (NodeError e) {
+                    assertEquals("Malformed number " + malformed[1], e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static String digits(Random random, int count) {
+        StringBuilder digits = new StringBuilder(count);
+        for (int i = 0; i < count; i++) {
+            digits.append((char) ('0' + random.nextInt(10)));
+        }
+        return digits.toString();
+    }
+
+    private static void assertSameDouble(String number, Node node) {
+        assertTrue(number + " read as " + node.asObject().getClass(), node instanceof NodeDouble);
+        double expected = Double.parseDouble(number);
+        assertEquals(number, Double.doubleToLongBits(expected), Double.doubleToLongBits(node.asDouble()));
+    }
+}